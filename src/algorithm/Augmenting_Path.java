@@ -0,0 +1,192 @@
+//
+// Search for augmenting paths of a residual network, shared by the Ford Fulkersons. One
+// object holds the arrays and counts of one run, so runs do not share any state
+//
+
+package algorithm;
+
+import util.*;
+
+
+class Augmenting_Path {
+
+	private ResidualNetwork net;
+
+	// Search from s and t at once instead of from s only
+	private boolean bidirectional;
+
+	// Arc every vertex of the last path was reached by, and for the bidirectional search
+	// the arc every vertex reaching t leaves by
+	private int[] parentArc;
+	private int[] childArc;
+
+	// mark[v] is search for vertices reached from s in the current bidirectional search
+	// and -search for those reaching t, so it never needs clearing
+	private int[] mark;
+	private int search;
+
+	// Room for the queues of a search, one entry per vertex
+	private int[] queue;
+
+	// Vertices labeled by all searches, and paths found
+	private long visited;
+	private long paths;
+
+	Augmenting_Path(ResidualNetwork net, boolean bidirectional) {
+		int n = net.numVertices;
+
+		this.net = net;
+		this.bidirectional = bidirectional;
+		this.parentArc = new int[n];
+		this.childArc = new int[n];
+		this.mark = new int[n];
+		this.queue = new int[n];
+	}
+
+	boolean isBidirectional() {
+		return bidirectional;
+	}
+
+	long getVisited() {
+		return visited;
+	}
+
+	long getPaths() {
+		return paths;
+	}
+
+	//
+	// Find a shortest s-t path of arcs with residual capacity at least delta, 1 for every
+	// arc with residual capacity. Return whether there is one
+	//
+	boolean find(long delta) {
+		if (net.source < 0 || net.sink < 0) {
+			return false;
+		}
+
+		boolean found = bidirectional ? findBidirectional(delta) : findForward(delta);
+		if (found) {
+			paths++;
+		}
+		return found;
+	}
+
+	//
+	// Push the bottleneck of the path found last along it, return the bottleneck
+	//
+	long augment() {
+		long bottleneck = Long.MAX_VALUE;
+		for (int v = net.sink; v != net.source; v = net.head[net.mate[parentArc[v]]]) {
+			bottleneck = Math.min(bottleneck, net.residual(parentArc[v]));
+		}
+		for (int v = net.sink; v != net.source; v = net.head[net.mate[parentArc[v]]]) {
+			net.push(parentArc[v], bottleneck);
+		}
+		return bottleneck;
+	}
+
+	//
+	// Breadth first search from s. parentArc[v] is set to the arc v was reached by, -1 for
+	// unreached vertices and s
+	//
+	private boolean findForward(long delta) {
+		int s = net.source;
+		int t = net.sink;
+		int front = 0, back = 0;
+
+		for (int v = 0; v < net.numVertices; v++) {
+			parentArc[v] = -1;
+		}
+		queue[back++] = s;
+		while (front < back && parentArc[t] < 0) {
+			int v = queue[front++];
+			for (int a = net.first[v]; a < net.first[v + 1]; a++) {
+				int w = net.head[a];
+				if (w != s && parentArc[w] < 0 && net.residual(a) >= delta) {
+					parentArc[w] = a;
+					queue[back++] = w;
+				}
+			}
+		}
+		visited += back;
+		return parentArc[t] >= 0;
+	}
+
+	//
+	// Breadth first search from s and, backwards, from t at once, one level of the smaller
+	// frontier at a time, until the two meet. The forward queue fills queue from the front
+	// and the reverse one from the back. On success parentArc holds the whole path, read
+	// back from t as for findForward
+	//
+	private boolean findBidirectional(long delta) {
+		int n = net.numVertices;
+		int s = net.source;
+		int t = net.sink;
+		int forwardFront = 0, forwardBack = 0;
+		int reverseFront = n, reverseBack = n;
+		int meet = -1;
+
+		search++;
+		mark[s] = search;
+		mark[t] = -search;
+		queue[forwardBack++] = s;
+		queue[--reverseBack] = t;
+		while (meet < 0 && forwardFront < forwardBack && reverseBack < reverseFront) {
+			if (forwardBack - forwardFront <= reverseFront - reverseBack) {
+				int end = forwardBack;
+				while (meet < 0 && forwardFront < end) {
+					int v = queue[forwardFront++];
+					for (int a = net.first[v]; a < net.first[v + 1]; a++) {
+						int w = net.head[a];
+						if (net.residual(a) < delta) {
+							continue;
+						}
+						if (mark[w] == -search) {
+							meet = a;
+							break;
+						}
+						if (mark[w] != search) {
+							mark[w] = search;
+							parentArc[w] = a;
+							queue[forwardBack++] = w;
+						}
+					}
+				}
+			} else {
+				int end = reverseBack;
+				while (meet < 0 && reverseFront > end) {
+					int w = queue[--reverseFront];
+					for (int b = net.first[w]; b < net.first[w + 1]; b++) {
+						int u = net.head[b];
+						int a = net.mate[b];
+						if (net.residual(a) < delta) {
+							continue;
+						}
+						if (mark[u] == search) {
+							meet = a;
+							break;
+						}
+						if (mark[u] != -search) {
+							mark[u] = -search;
+							childArc[u] = a;
+							queue[--reverseBack] = u;
+						}
+					}
+				}
+			}
+		}
+		visited += forwardBack + n - reverseBack;
+		if (meet < 0) {
+			return false;
+		}
+
+		// Hang the half found from t onto the half found from s
+		for (int a = meet; ; a = childArc[net.head[a]]) {
+			parentArc[net.head[a]] = a;
+			if (net.head[a] == t) {
+				break;
+			}
+		}
+		return true;
+	}
+}
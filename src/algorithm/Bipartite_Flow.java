@@ -0,0 +1,603 @@
+//
+// Maximum flow on layered bipartite networks, in which every edge leads from s to a left
+// vertex, from a left vertex to a right vertex or from a right vertex to t. Unit networks
+// are matched by Hopcroft-Karp, and all other networks go to the general preflow-push
+// solver. Bipartite push-relabel with two-edge pushes can be chosen instead for layered
+// networks of any capacities
+//
+
+package algorithm;
+
+import java.util.*;
+
+import util.*;
+
+
+public class Bipartite_Flow {
+
+	//
+	// Engines a network can be routed to
+	//
+	public enum Engine {
+		// Every edge has capacity 1, so a maximum flow is a maximum matching
+		HOPCROFT_KARP,
+		// Layered bipartite network with arbitrary capacities. Only run when chosen, as on
+		// the generated bipartite graphs it is not faster than Preflow_Push
+		BIPARTITE_PUSH_RELABEL,
+		// Anything else, solved by Preflow_Push
+		GENERAL
+	}
+
+	// Sides of the vertices of a layered bipartite network
+	public static final byte NONE = 0;
+	public static final byte LEFT = 1;
+	public static final byte RIGHT = 2;
+
+	// Residual network the algorithm runs on, and the side of every vertex
+	private ResidualNetwork net;
+	private int n;
+	private byte[] side;
+	private int numLeft;
+	private int numRight;
+	private Engine engine;
+
+	// Height, excess and current arc of every vertex for push-relabel. Only left vertices
+	// hold excess, a push from a left vertex goes on through a right vertex at once
+	private int[] height;
+	private long[] excess;
+	private int[] current;
+
+	// Active left vertices, in a circular queue
+	private int[] fifo;
+	private int fifoFirst;
+	private int fifoSize;
+	private boolean[] active;
+
+	// Only left vertices below heightLimit are discharged, n in phase one and 2n in phase two
+	private int heightLimit;
+
+	// Global relabeling runs once the relabel work since the last one exceeds n + m
+	private long relabelWork;
+	private int[] queue;
+
+	// Matching of Hopcroft-Karp. matchArc[u] is the arc from left vertex u to its partner,
+	// matchLeft[w] the partner of right vertex w, -1 if unmatched. layer[u] is the BFS
+	// layer of left vertex u in the current phase, and stack the path of the DFS
+	private int[] matchArc;
+	private int[] matchLeft;
+	private int[] layer;
+	private int[] stack;
+
+	// Operation counts of the last run
+	private long pushes;
+	private long relabels;
+	private long phases;
+
+	//
+	// Test interface of this class
+	//
+	public static void BF(SimpleGraph graph, Hashtable table) {
+		BF(new ResidualNetwork(graph));
+	}
+
+	public static void BF(ResidualNetwork net) {
+		// Start recording running time in ms
+		long start = System.currentTimeMillis();
+
+		Bipartite_Flow bf = new Bipartite_Flow(net);
+
+		if (bf.side == null) {
+			System.out.println("Bipartite detection: not a layered bipartite network");
+		} else {
+			System.out.println("Bipartite detection: " + bf.numLeft + " left and " + bf.numRight + " right vertices");
+		}
+
+		Double maxFlow = bf.run();
+
+		// End recording running time in ms
+		long end = System.currentTimeMillis();
+
+		String counts;
+		if (bf.engine == Engine.HOPCROFT_KARP) {
+			counts = "phases " + bf.phases;
+		} else {
+			counts = "pushes " + bf.pushes + ", relabels " + bf.relabels;
+		}
+		System.out.println("Bipartite Flow (" + bf.engine + "): \nruntime is " + (end - start) + "ms, maximum flow is " + maxFlow
+				+ "\n" + counts + "\n");
+	}
+
+	public Bipartite_Flow(ResidualNetwork net) {
+		this.net = net;
+		this.n = net.numVertices;
+		this.side = detect(net);
+
+		if (side == null) {
+			engine = Engine.GENERAL;
+			return;
+		}
+		for (int v=0; v<n; v++) {
+			if (side[v] == LEFT) {
+				numLeft++;
+			} else if (side[v] == RIGHT) {
+				numRight++;
+			}
+		}
+		engine = isUnit() ? Engine.HOPCROFT_KARP : Engine.GENERAL;
+	}
+
+	//
+	// Return the side of every vertex if every edge of the network leads from s to a left
+	// vertex, from a left vertex to a right vertex or from a right vertex to t, null if not.
+	// Vertices without edges are on neither side
+	//
+	public static byte[] detect(ResidualNetwork net) {
+		int s = net.source;
+		int t = net.sink;
+		byte[] side = new byte[net.numVertices];
+
+		if (s < 0 || t < 0) {
+			return null;
+		}
+
+		// Every edge fixes the side of its endpoints other than s and t
+		for (int k=0; k<net.edgeArc.length; k++) {
+			int a = net.edgeArc[k];
+			int v = net.head[net.mate[a]];
+			int w = net.head[a];
+			byte sideV = w == t ? RIGHT : LEFT;
+			byte sideW = v == s ? LEFT : RIGHT;
+
+			if (v == t || w == s || (v == s && w == t)) {
+				return null;
+			}
+			if (v != s && !setSide(side, v, sideV)) {
+				return null;
+			}
+			if (w != t && !setSide(side, w, sideW)) {
+				return null;
+			}
+		}
+
+		return side;
+	}
+
+	private static boolean setSide(byte[] side, int v, byte s) {
+		if (side[v] != NONE && side[v] != s) {
+			return false;
+		}
+		side[v] = s;
+		return true;
+	}
+
+	public Engine getEngine() {
+		return engine;
+	}
+
+	//
+	// Choose the engine instead of the one the network was routed to. Push-relabel needs a
+	// layered bipartite network, Hopcroft-Karp one whose edges all have capacity 1
+	//
+	public void setEngine(Engine engine) {
+		if (engine != Engine.GENERAL && side == null) {
+			throw new IllegalArgumentException("Not a layered bipartite network");
+		}
+		if (engine == Engine.HOPCROFT_KARP && !isUnit()) {
+			throw new IllegalArgumentException("Not a unit capacity network");
+		}
+		this.engine = engine;
+	}
+
+	public byte[] getSide() {
+		return side;
+	}
+
+	public long getPushes() {
+		return pushes;
+	}
+
+	public long getRelabels() {
+		return relabels;
+	}
+
+	public long getPhases() {
+		return phases;
+	}
+
+	//
+	// Compute a maximum flow of the network with the chosen engine, return its value
+	//
+	public double run() {
+		pushes = 0;
+		relabels = 0;
+		phases = 0;
+
+		if (engine == Engine.GENERAL) {
+			Preflow_Push pp = new Preflow_Push(net);
+			double maxFlow = pp.run();
+
+			pushes = pp.getPushes();
+			relabels = pp.getRelabels();
+			return maxFlow;
+		}
+
+		net.resetFlow();
+		if (engine == Engine.HOPCROFT_KARP) {
+			return hopcroftKarp();
+		}
+
+		double maxFlow = pushRelabelPhaseOne();
+		pushRelabelPhaseTwo();
+		return maxFlow;
+	}
+
+	//
+	// Return whether every edge has capacity 1, every left vertex has exactly one edge from s
+	// and every right vertex exactly one edge to t
+	//
+	private boolean isUnit() {
+		int s = net.source;
+		int t = net.sink;
+		int[] degree = new int[n];
+
+		for (int k=0; k<net.edgeArc.length; k++) {
+			int a = net.edgeArc[k];
+			int v = net.head[net.mate[a]];
+			int w = net.head[a];
+
+			if (net.capacity[a] != net.scale) {
+				return false;
+			}
+			if (v == s) {
+				degree[w]++;
+			} else if (w == t) {
+				degree[v]++;
+			}
+		}
+
+		for (int v=0; v<n; v++) {
+			if (side[v] != NONE && degree[v] != 1) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	//
+	// Hopcroft-Karp. Each phase finds the shortest augmenting paths by a BFS over the left
+	// vertices and augments along a maximal set of disjoint ones by DFS. The matching is
+	// written to the arcs at the end
+	//
+	private double hopcroftKarp() {
+		int s = net.source;
+		int t = net.sink;
+
+		matchArc = new int[n];
+		matchLeft = new int[n];
+		layer = new int[n];
+		current = new int[n];
+		queue = new int[n];
+		stack = new int[n];
+		Arrays.fill(matchArc, -1);
+		Arrays.fill(matchLeft, -1);
+
+		long matched = 0;
+		while (buildLayers()) {
+			for (int u=0; u<n; u++) {
+				current[u] = net.first[u];
+			}
+			for (int u=0; u<n; u++) {
+				if (side[u] == LEFT && matchArc[u] < 0 && augmentMatching(u)) {
+					matched++;
+				}
+			}
+			phases++;
+		}
+
+		// Send one unit along s, u, w, t for every matched pair
+		for (int a=net.first[s]; a<net.first[s+1]; a++) {
+			int u = net.head[a];
+
+			if (matchArc[u] >= 0) {
+				int w = net.head[matchArc[u]];
+
+				net.push(a, net.scale);
+				net.push(matchArc[u], net.scale);
+				for (int b=net.first[w]; b<net.first[w+1]; b++) {
+					if (net.head[b] == t) {
+						net.push(b, net.scale);
+					}
+				}
+			}
+		}
+
+		return net.toValue(matched * net.scale);
+	}
+
+	//
+	// Layer the left vertices by BFS from the unmatched ones, moving from a left vertex to
+	// the partner of any of its right neighbors. Return whether an unmatched right vertex
+	// was seen
+	//
+	private boolean buildLayers() {
+		int front = 0;
+		int back = 0;
+		boolean found = false;
+
+		for (int u=0; u<n; u++) {
+			layer[u] = Integer.MAX_VALUE;
+			if (side[u] == LEFT && matchArc[u] < 0) {
+				layer[u] = 0;
+				queue[back++] = u;
+			}
+		}
+
+		while (front < back) {
+			int u = queue[front++];
+
+			for (int a=net.first[u]; a<net.first[u+1]; a++) {
+				int w = net.head[a];
+
+				if (side[w] != RIGHT || net.capacity[a] == 0) {
+					continue;
+				}
+				int x = matchLeft[w];
+				if (x < 0) {
+					found = true;
+				} else if (layer[x] == Integer.MAX_VALUE) {
+					layer[x] = layer[u] + 1;
+					queue[back++] = x;
+				}
+			}
+		}
+
+		return found;
+	}
+
+	//
+	// Look for an augmenting path from the unmatched left vertex root along the layers and
+	// flip the matching along it. The search keeps the left vertices of the path on a stack
+	// and resumes every vertex at its current arc. Return whether a path was found
+	//
+	private boolean augmentMatching(int root) {
+		int depth = 0;
+
+		stack[depth++] = root;
+		while (depth > 0) {
+			int u = stack[depth - 1];
+
+			if (current[u] == net.first[u+1]) {
+				// u leads nowhere in this phase
+				layer[u] = Integer.MAX_VALUE;
+				depth--;
+				if (depth > 0) {
+					current[stack[depth - 1]]++;
+				}
+				continue;
+			}
+
+			int a = current[u];
+			int w = net.head[a];
+			if (side[w] != RIGHT || net.capacity[a] == 0) {
+				current[u]++;
+				continue;
+			}
+
+			int x = matchLeft[w];
+			if (x < 0) {
+				for (int i=depth-1; i>=0; i--) {
+					int v = stack[i];
+					matchArc[v] = current[v];
+					matchLeft[net.head[current[v]]] = v;
+				}
+				return true;
+			}
+
+			if (layer[x] == layer[u] + 1) {
+				stack[depth++] = x;
+			} else {
+				current[u]++;
+			}
+		}
+
+		return false;
+	}
+
+	//
+	// Phase one of bipartite push-relabel: compute a maximum preflow. Return the excess of t
+	//
+	private double pushRelabelPhaseOne() {
+		int s = net.source;
+		int t = net.sink;
+
+		height = new int[n];
+		excess = new long[n];
+		current = new int[n];
+		fifo = new int[n];
+		active = new boolean[n];
+		queue = new int[n];
+		fifoFirst = 0;
+		fifoSize = 0;
+		heightLimit = n;
+
+		// Saturate all the arcs out of s, they all end at left vertices
+		for (int a=net.first[s]; a<net.first[s+1]; a++) {
+			long delta = net.residual(a);
+
+			if (delta > 0) {
+				net.push(a, delta);
+				excess[net.head[a]] += delta;
+			}
+		}
+
+		globalRelabel();
+		discharge();
+		return net.toValue(excess[t]);
+	}
+
+	//
+	// Phase two: return the excess left on the source side to s. Often phase one leaves
+	// none, and then the global relabeling of this phase is skipped
+	//
+	private void pushRelabelPhaseTwo() {
+		int v = 0;
+		while (v < n && (side[v] != LEFT || excess[v] == 0)) {
+			v++;
+		}
+		if (v == n) {
+			return;
+		}
+		heightLimit = 2 * n;
+		globalRelabel();
+		discharge();
+	}
+
+	//
+	// Discharge active left vertices in FIFO order until none below heightLimit has excess
+	//
+	private void discharge() {
+		long threshold = n + net.numArcs / 2;
+		int u;
+
+		while ((u = nextActive()) >= 0) {
+			discharge(u);
+
+			if (relabelWork > threshold) {
+				globalRelabel();
+			}
+		}
+	}
+
+	//
+	// Push from left vertex u until its excess is gone. A push runs along an admissible arc
+	// to a right vertex w and on along an admissible arc out of w, so w keeps no excess.
+	// If w has no admissible arc it is relabeled instead
+	//
+	private void discharge(int u) {
+		int s = net.source;
+		int end = net.first[u+1];
+
+		while (excess[u] > 0 && height[u] < heightLimit) {
+			if (current[u] == end) {
+				relabel(u);
+				continue;
+			}
+
+			int a = current[u];
+			int w = net.head[a];
+
+			if (net.residual(a) <= 0 || height[u] != height[w] + 1) {
+				current[u]++;
+				continue;
+			}
+
+			// Back to s, only in phase two
+			if (w == s) {
+				long delta = Math.min(excess[u], net.residual(a));
+
+				net.push(a, delta);
+				excess[u] -= delta;
+				excess[s] += delta;
+				pushes++;
+				continue;
+			}
+
+			int b = admissibleArc(w);
+			if (b < 0) {
+				relabel(w);
+				current[u]++;
+				continue;
+			}
+
+			int x = net.head[b];
+			long delta = Math.min(excess[u], Math.min(net.residual(a), net.residual(b)));
+
+			net.push(a, delta);
+			net.push(b, delta);
+			excess[u] -= delta;
+			excess[x] += delta;
+			pushes++;
+			activate(x);
+		}
+
+		activate(u);
+	}
+
+	//
+	// Return the first admissible arc out of right vertex w from its current arc on, -1 if
+	// there is none
+	//
+	private int admissibleArc(int w) {
+		int end = net.first[w+1];
+
+		for (; current[w]<end; current[w]++) {
+			int b = current[w];
+
+			if (net.residual(b) > 0 && height[w] == height[net.head[b]] + 1) {
+				return b;
+			}
+		}
+
+		return -1;
+	}
+
+	//
+	// Relabel operation, lift v just above its lowest residual neighbor
+	//
+	private void relabel(int v) {
+		int minHeight = 2 * n - 2;
+
+		for (int a=net.first[v]; a<net.first[v+1]; a++) {
+			if (net.residual(a) > 0 && height[net.head[a]] < minHeight) {
+				minHeight = height[net.head[a]];
+			}
+		}
+
+		height[v] = minHeight + 1;
+		current[v] = net.first[v];
+		relabels++;
+		relabelWork += net.first[v+1] - net.first[v] + 12;
+	}
+
+	//
+	// Global relabel operation, set every height to its exact value and make every left
+	// vertex with excess active again
+	//
+	private void globalRelabel() {
+		Exact_Heights.label(net, height, queue);
+
+		for (int v=0; v<n; v++) {
+			current[v] = net.first[v];
+		}
+		fifoFirst = 0;
+		fifoSize = 0;
+		Arrays.fill(active, false);
+		for (int v=0; v<n; v++) {
+			activate(v);
+		}
+
+		relabelWork = 0;
+	}
+
+	//
+	// Add left vertex v to the active vertices if it has excess below the height limit
+	//
+	private void activate(int v) {
+		if (!active[v] && side[v] == LEFT && excess[v] > 0 && height[v] < heightLimit) {
+			active[v] = true;
+			fifo[(fifoFirst + fifoSize++) % n] = v;
+		}
+	}
+
+	private int nextActive() {
+		if (fifoSize == 0) {
+			return -1;
+		}
+
+		int v = fifo[fifoFirst];
+		fifoFirst = (fifoFirst + 1) % n;
+		fifoSize--;
+		active[v] = false;
+		return v;
+	}
+}
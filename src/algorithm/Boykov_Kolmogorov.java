@@ -0,0 +1,336 @@
+//
+// Boykov-Kolmogorov maximum flow: search trees grown from s and from t are kept
+// across augmentations and repaired where an augmentation cut them
+//
+
+package algorithm;
+
+import java.util.*;
+
+import util.*;
+
+
+public class Boykov_Kolmogorov {
+
+	// Trees a vertex can belong to
+	private static final byte FREE = 0;
+	private static final byte SOURCE_TREE = 1;
+	private static final byte SINK_TREE = 2;
+
+	// Parent arcs of the tree roots and of vertices cut off their tree
+	private static final int ROOT = -2;
+	private static final int ORPHAN = -3;
+
+	// Residual network the algorithm runs on
+	private ResidualNetwork net;
+	private int n;
+
+	// Tree and parent arc of every vertex. In the source tree the parent arc leads
+	// from the parent to the vertex, in the sink tree from the vertex to the parent,
+	// and it always has residual capacity
+	private byte[] tree;
+	private int[] parent;
+
+	// Distance to the root, valid if the stamp of the vertex is the current time.
+	// Adoption prefers parents close to the root and reuses checked paths
+	private int[] dist;
+	private long[] stamp;
+	private long time;
+
+	// Active vertices in a circular queue, they may still grow their tree
+	private int[] activeQueue;
+	private int activeFirst;
+	private int activeSize;
+	private boolean[] active;
+
+	// Orphans waiting for a new parent, on a stack. Taking the newest orphan first
+	// mostly reattaches a vertex right after its parent, before scanning elsewhere
+	private int[] orphans;
+	private int orphanSize;
+
+	// Operation counts of the last run
+	private long augmentations;
+	private long adoptions;
+
+	//
+	// Test interface of this class
+	//
+	public static void BK(SimpleGraph graph, Hashtable table) {
+		BK(new ResidualNetwork(graph));
+	}
+
+	public static void BK(ResidualNetwork net) {
+		// Start recording running time in ms
+		long start = System.currentTimeMillis();
+
+		Boykov_Kolmogorov bk = new Boykov_Kolmogorov(net);
+		Double maxFlow = bk.run();
+
+		// End recording running time in ms
+		long end = System.currentTimeMillis();
+
+		System.out.println("Boykov Kolmogorov: \nruntime is " + (end - start) + "ms, maximum flow is " + maxFlow
+				+ "\naugmenting paths " + bk.augmentations + ", orphans " + bk.adoptions + "\n");
+	}
+
+	public Boykov_Kolmogorov(ResidualNetwork net) {
+		this.net = net;
+		this.n = net.numVertices;
+		this.tree = new byte[n];
+		this.parent = new int[n];
+		this.dist = new int[n];
+		this.stamp = new long[n];
+		this.activeQueue = new int[n];
+		this.active = new boolean[n];
+		this.orphans = new int[n];
+	}
+
+	public long getAugmentations() {
+		return augmentations;
+	}
+
+	public long getAdoptions() {
+		return adoptions;
+	}
+
+	//
+	// Compute a maximum flow of the network, return its value
+	//
+	public double run() {
+		int s = net.source;
+		int t = net.sink;
+
+		net.resetFlow();
+		augmentations = 0;
+		adoptions = 0;
+
+		if (s < 0 || t < 0) {
+			return 0.0;
+		}
+
+		Arrays.fill(tree, FREE);
+		Arrays.fill(parent, -1);
+		Arrays.fill(stamp, 0);
+		Arrays.fill(active, false);
+		activeFirst = 0;
+		activeSize = 0;
+		orphanSize = 0;
+		time = 1;
+
+		tree[s] = SOURCE_TREE;
+		tree[t] = SINK_TREE;
+		for (int root : new int[] {s, t}) {
+			parent[root] = ROOT;
+			dist[root] = 0;
+			stamp[root] = time;
+			activate(root);
+		}
+
+		long maxFlow = 0;
+		while (activeSize > 0) {
+			int v = activeQueue[activeFirst];
+
+			// Vertices may have left their tree while queued
+			if (tree[v] == FREE) {
+				dequeueActive();
+				continue;
+			}
+
+			int meet = grow(v);
+			if (meet < 0) {
+				dequeueActive();
+				continue;
+			}
+
+			// v stays at the front, it may have more arcs into the other tree
+			time++;
+			maxFlow += augment(meet);
+			adopt();
+		}
+
+		return net.toValue(maxFlow);
+	}
+
+	//
+	// Growth stage, add the free neighbors of v to its tree. Return an arc from the source
+	// tree to the sink tree with residual capacity as soon as one is seen, -1 if none is
+	//
+	private int grow(int v) {
+		for (int a=net.first[v]; a<net.first[v+1]; a++) {
+			int w = net.head[a];
+
+			// The arc the tree of v would use between v and w
+			int arc = tree[v] == SOURCE_TREE ? a : net.mate[a];
+			if (net.residual(arc) <= 0) {
+				continue;
+			}
+
+			if (tree[w] == FREE) {
+				tree[w] = tree[v];
+				parent[w] = arc;
+				dist[w] = dist[v] + 1;
+				stamp[w] = stamp[v];
+				activate(w);
+			} else if (tree[w] != tree[v]) {
+				return arc;
+			} else if (stamp[w] <= stamp[v] && dist[w] > dist[v] + 1) {
+				// Keep the trees shallow, w is closer to the root through v
+				parent[w] = arc;
+				dist[w] = dist[v] + 1;
+				stamp[w] = stamp[v];
+			}
+		}
+
+		return -1;
+	}
+
+	//
+	// Augment stage, send the bottleneck along the path through the arc meet from the source
+	// tree to the sink tree. Vertices whose parent arc gets saturated become orphans.
+	// Return the amount sent
+	//
+	private long augment(int meet) {
+		long bottleneck = net.residual(meet);
+
+		for (int v=tail(meet); parent[v] != ROOT; v=tail(parent[v])) {
+			bottleneck = Math.min(bottleneck, net.residual(parent[v]));
+		}
+		for (int v=net.head[meet]; parent[v] != ROOT; v=net.head[parent[v]]) {
+			bottleneck = Math.min(bottleneck, net.residual(parent[v]));
+		}
+
+		net.push(meet, bottleneck);
+		for (int v=tail(meet); parent[v] != ROOT; ) {
+			int a = parent[v];
+			net.push(a, bottleneck);
+			if (net.residual(a) == 0) {
+				makeOrphan(v);
+			}
+			v = tail(a);
+		}
+		for (int v=net.head[meet]; parent[v] != ROOT; ) {
+			int a = parent[v];
+			net.push(a, bottleneck);
+			if (net.residual(a) == 0) {
+				makeOrphan(v);
+			}
+			v = net.head[a];
+		}
+
+		augmentations++;
+		return bottleneck;
+	}
+
+	//
+	// Adoption stage, give every orphan a new parent of its tree which still reaches the root,
+	// or free it and turn its children into orphans
+	//
+	private void adopt() {
+		while (orphanSize > 0) {
+			int v = orphans[--orphanSize];
+			adoptions++;
+
+			boolean sourceTree = tree[v] == SOURCE_TREE;
+			int best = -1;
+			int bestDist = Integer.MAX_VALUE;
+
+			for (int a=net.first[v]; a<net.first[v+1]; a++) {
+				int w = net.head[a];
+				int arc = sourceTree ? net.mate[a] : a;
+
+				if (tree[w] == tree[v] && net.residual(arc) > 0) {
+					int d = rootDistance(w);
+					if (d < bestDist) {
+						best = arc;
+						bestDist = d;
+					}
+				}
+			}
+
+			if (best >= 0) {
+				parent[v] = best;
+				dist[v] = bestDist + 1;
+				stamp[v] = time;
+				continue;
+			}
+
+			// No parent, neighbors of the same tree may grow into v later
+			for (int a=net.first[v]; a<net.first[v+1]; a++) {
+				int w = net.head[a];
+				int arc = sourceTree ? net.mate[a] : a;
+
+				if (tree[w] != tree[v]) {
+					continue;
+				}
+				if (net.residual(arc) > 0) {
+					activate(w);
+				}
+				if (parent[w] >= 0 && (sourceTree ? tail(parent[w]) : net.head[parent[w]]) == v) {
+					makeOrphan(w);
+				}
+			}
+			tree[v] = FREE;
+			parent[v] = -1;
+		}
+	}
+
+	//
+	// Return the distance from w to the root of its tree, or Integer.MAX_VALUE if the path
+	// up from w runs into an orphan. Vertices on a valid path are stamped with the current
+	// time and their distance, so later checks stop there
+	//
+	private int rootDistance(int w) {
+		boolean sourceTree = tree[w] == SOURCE_TREE;
+		int d = 0;
+		int v = w;
+
+		while (true) {
+			if (stamp[v] == time) {
+				d += dist[v];
+				break;
+			}
+			int a = parent[v];
+			if (a == ROOT) {
+				stamp[v] = time;
+				dist[v] = 0;
+				break;
+			}
+			if (a == ORPHAN) {
+				return Integer.MAX_VALUE;
+			}
+			d++;
+			v = sourceTree ? tail(a) : net.head[a];
+		}
+
+		int result = d;
+		for (v=w; stamp[v] != time; v=sourceTree ? tail(parent[v]) : net.head[parent[v]]) {
+			stamp[v] = time;
+			dist[v] = d;
+			d--;
+		}
+		return result;
+	}
+
+	private int tail(int a) {
+		return net.head[net.mate[a]];
+	}
+
+	private void makeOrphan(int v) {
+		parent[v] = ORPHAN;
+		orphans[orphanSize++] = v;
+	}
+
+	private void activate(int v) {
+		if (!active[v]) {
+			active[v] = true;
+			activeQueue[(activeFirst + activeSize) % n] = v;
+			activeSize++;
+		}
+	}
+
+	private void dequeueActive() {
+		active[activeQueue[activeFirst]] = false;
+		activeFirst = (activeFirst + 1) % n;
+		activeSize--;
+	}
+}
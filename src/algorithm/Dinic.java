@@ -0,0 +1,195 @@
+//
+// Dinic's algorithm: blocking flows on the BFS level graph of the residual network
+//
+
+package algorithm;
+
+import java.util.*;
+
+import util.*;
+
+
+public class Dinic {
+
+	// Residual network the algorithm runs on
+	private ResidualNetwork net;
+	private int n;
+
+	// Distance of every vertex from s in the residual network, -1 if it
+	// cannot be reached or cannot lead to t any more in the current phase
+	private int[] level;
+
+	// Next arc to try out of every vertex in the current phase
+	private int[] current;
+
+	// BFS queue, and the arcs of the path the DFS is currently on
+	private int[] queue;
+	private int[] path;
+
+	// Operation counts of the last run
+	private long phases;
+	private long augmentations;
+
+	//
+	// Test interface of this class
+	//
+	public static void DN(SimpleGraph graph, Hashtable table) {
+		DN(new ResidualNetwork(graph));
+	}
+
+	public static void DN(ResidualNetwork net) {
+		// Start recording running time in ms
+		long start = System.currentTimeMillis();
+
+		Dinic dinic = new Dinic(net);
+		Double maxFlow = dinic.run();
+
+		// End recording running time in ms
+		long end = System.currentTimeMillis();
+
+		System.out.println("Dinic: \nruntime is " + (end - start) + "ms, maximum flow is " + maxFlow
+				+ "\nphases " + dinic.phases + ", augmenting paths " + dinic.augmentations + "\n");
+	}
+
+	public Dinic(ResidualNetwork net) {
+		this.net = net;
+		this.n = net.numVertices;
+		this.level = new int[n];
+		this.current = new int[n];
+		this.queue = new int[n];
+		this.path = new int[n];
+	}
+
+	public long getPhases() {
+		return phases;
+	}
+
+	public long getAugmentations() {
+		return augmentations;
+	}
+
+	//
+	// Compute a maximum flow of the network, return its value
+	//
+	public double run() {
+		int s = net.source;
+		int t = net.sink;
+
+		net.resetFlow();
+		phases = 0;
+		augmentations = 0;
+
+		if (s < 0 || t < 0) {
+			return 0.0;
+		}
+
+		long maxFlow = 0;
+		while (buildLevels()) {
+			for (int v=0; v<n; v++) {
+				current[v] = net.first[v];
+			}
+			maxFlow += blockingFlow();
+			phases++;
+		}
+
+		return net.toValue(maxFlow);
+	}
+
+	//
+	// Label every vertex by its distance from s, stop once the level of t is done.
+	// Return whether t can be reached at all
+	//
+	private boolean buildLevels() {
+		int s = net.source;
+		int t = net.sink;
+		int front = 0;
+		int back = 0;
+
+		Arrays.fill(level, -1);
+		level[s] = 0;
+		queue[back++] = s;
+		while (front < back) {
+			int v = queue[front++];
+
+			// Vertices at the level of t or above are of no use
+			if (level[t] >= 0 && level[v] >= level[t]) {
+				break;
+			}
+
+			for (int a=net.first[v]; a<net.first[v+1]; a++) {
+				int w = net.head[a];
+
+				if (level[w] < 0 && net.residual(a) > 0) {
+					level[w] = level[v] + 1;
+					queue[back++] = w;
+				}
+			}
+		}
+
+		return level[t] >= 0;
+	}
+
+	//
+	// Saturate every s-t path of the level graph. The search is iterative: it advances
+	// along the current arc of the vertex at the end of the path, retreats from vertices
+	// with no arcs left, and after each augmentation backs up to the tail of the first
+	// saturated arc. Return the amount of flow sent
+	//
+	private long blockingFlow() {
+		int s = net.source;
+		int t = net.sink;
+		int depth = 0;
+		int v = s;
+		long sent = 0;
+
+		while (true) {
+			if (v == t) {
+				long bottleneck = Long.MAX_VALUE;
+				int cut = 0;
+
+				for (int i=0; i<depth; i++) {
+					long r = net.residual(path[i]);
+					if (r < bottleneck) {
+						bottleneck = r;
+						cut = i;
+					}
+				}
+				for (int i=0; i<depth; i++) {
+					net.push(path[i], bottleneck);
+				}
+
+				sent += bottleneck;
+				augmentations++;
+				depth = cut;
+				v = net.head[net.mate[path[cut]]];
+				continue;
+			}
+
+			// Advance along the first admissible arc left
+			int end = net.first[v+1];
+			while (current[v] < end) {
+				int a = current[v];
+				int w = net.head[a];
+
+				if (level[w] == level[v] + 1 && net.residual(a) > 0) {
+					break;
+				}
+				current[v]++;
+			}
+
+			if (current[v] < end) {
+				path[depth++] = current[v];
+				v = net.head[current[v]];
+				continue;
+			}
+
+			// Retreat, v leads nowhere in this phase
+			if (v == s) {
+				return sent;
+			}
+			level[v] = -1;
+			v = net.head[net.mate[path[--depth]]];
+			current[v]++;
+		}
+	}
+}
@@ -0,0 +1,54 @@
+//
+// Exact distance labels for the sequential push-relabel solvers, computed by breadth first
+// search backwards from t and then from s in the residual network
+//
+
+package algorithm;
+
+import util.*;
+
+
+class Exact_Heights {
+
+	//
+	// Set every height to the exact residual distance to t, or to n plus the distance to s
+	// for vertices which cannot reach t any more. Vertices reaching neither s nor t get the
+	// largest possible height, 2n - 1. queue needs room for every vertex
+	//
+	static void label(ResidualNetwork net, int[] height, int[] queue) {
+		int n = net.numVertices;
+
+		for (int v=0; v<n; v++) {
+			height[v] = 2 * n - 1;
+		}
+		height[net.sink] = 0;
+		height[net.source] = n;
+		reverseBreadthFirst(net, height, queue, net.sink);
+		reverseBreadthFirst(net, height, queue, net.source);
+	}
+
+	//
+	// Label the unlabeled vertices which reach root in the residual network by their
+	// distance to it, on top of the height of root
+	//
+	private static void reverseBreadthFirst(ResidualNetwork net, int[] height, int[] queue, int root) {
+		int unlabeled = 2 * net.numVertices - 1;
+		int front = 0;
+		int back = 0;
+
+		queue[back++] = root;
+		while (front < back) {
+			int w = queue[front++];
+
+			for (int a=net.first[w]; a<net.first[w+1]; a++) {
+				int u = net.head[a];
+
+				// u reaches w if the arc u->w, the mate of a, has residual capacity
+				if (height[u] == unlabeled && net.residual(net.mate[a]) > 0) {
+					height[u] = height[w] + 1;
+					queue[back++] = u;
+				}
+			}
+		}
+	}
+}
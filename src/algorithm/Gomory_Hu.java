@@ -0,0 +1,251 @@
+//
+// Gomory-Hu tree by Gusfield's algorithm: n-1 maximum flow solves give a tree on the
+// vertices in which the minimum cut between any two vertices is the lightest edge on
+// the path between them. Edges of the graph are taken as undirected
+//
+
+package algorithm;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import util.*;
+
+
+public class Gomory_Hu {
+
+	// Network with the capacity of every edge in both directions, and one network
+	// sharing its structure and one solver per worker. The workers move the source and
+	// sink of their own networks, so those of net stay the ones of the graph
+	private ResidualNetwork net;
+	private int n;
+	private ResidualNetwork[] networks;
+	private Preflow_Push[] solvers;
+	private ForkJoinPool pool;
+
+	// Tree edge of every vertex but 0: it leads to parent[v] and has capacity weight[v]
+	private int[] parent;
+	private long[] weight;
+	private int[] depth;
+
+	// Operation counts of the last build
+	private long solves;
+	private long discarded;
+
+	//
+	// Test interface of this class
+	//
+	public static void GH(SimpleGraph graph, Hashtable table, int threads) {
+		// Start recording running time in ms
+		long start = System.currentTimeMillis();
+
+		Gomory_Hu gh = new Gomory_Hu(graph, threads);
+		gh.build();
+
+		// End recording running time in ms
+		long end = System.currentTimeMillis();
+
+		String cut = "none";
+		ResidualNetwork net = gh.net;
+		if (net.source >= 0 && net.sink >= 0) {
+			cut = "" + gh.minCut(net.source, net.sink);
+		}
+		System.out.println("Gomory Hu (" + threads + " threads): \nruntime is " + (end - start)
+				+ "ms, undirected minimum cut between s and t is " + cut
+				+ "\nmaximum flow solves " + gh.solves + ", discarded " + gh.discarded + "\n");
+		gh.shutdown();
+	}
+
+	public Gomory_Hu(SimpleGraph graph, int threads) {
+		this.net = new ResidualNetwork(graph);
+		this.n = net.numVertices;
+
+		// Either arc of an undirected edge may carry its whole capacity
+		for (int k=0; k<net.edgeArc.length; k++) {
+			int a = net.edgeArc[k];
+			net.capacity[net.mate[a]] = net.capacity[a];
+		}
+
+		threads = Math.max(1, threads);
+		this.networks = new ResidualNetwork[threads];
+		this.solvers = new Preflow_Push[threads];
+		for (int i=0; i<threads; i++) {
+			networks[i] = new ResidualNetwork(net);
+			solvers[i] = new Preflow_Push(networks[i]);
+		}
+		this.pool = threads > 1 ? new ForkJoinPool(threads) : null;
+
+		this.parent = new int[n];
+		this.weight = new long[n];
+		this.depth = new int[n];
+	}
+
+	//
+	// Stop the worker threads
+	//
+	public void shutdown() {
+		if (pool != null) {
+			pool.shutdown();
+		}
+	}
+
+	public long getSolves() {
+		return solves;
+	}
+
+	public long getDiscarded() {
+		return discarded;
+	}
+
+	//
+	// Return the parent of v in the tree, -1 for vertex 0, the root. Valid after build
+	//
+	public int getParent(int v) {
+		return parent[v];
+	}
+
+	//
+	// Return the capacity of the tree edge between v and its parent
+	//
+	public double getWeight(int v) {
+		return net.toValue(weight[v]);
+	}
+
+	//
+	// Build the tree. Vertex s is cut from its current parent t, and every later vertex on
+	// the side of s that hung below t moves below s. With several workers the cuts of the
+	// next vertices are computed at once, each against the parent it has at that moment.
+	// They are then taken in order and a cut is used only while the parent it was computed
+	// against has not changed, so the tree is the one of the sequential algorithm
+	//
+	public void build() {
+		int workers = solvers.length;
+		long[] value = new long[workers];
+		int[] target = new int[workers];
+		boolean[][] side = new boolean[workers][];
+
+		Arrays.fill(parent, 0);
+		Arrays.fill(weight, 0);
+		parent[0] = -1;
+		solves = 0;
+		discarded = 0;
+
+		int s = 1;
+		while (s < n) {
+			int count = Math.min(workers, n - s);
+
+			for (int i=0; i<count; i++) {
+				target[i] = parent[s + i];
+			}
+			solveCuts(s, count, target, value, side);
+			solves += count;
+
+			int used = 0;
+			while (used < count && parent[s + used] == target[used]) {
+				int v = s + used;
+				int t = target[used];
+
+				weight[v] = value[used];
+				for (int i=v+1; i<n; i++) {
+					if (side[used][i] && parent[i] == t) {
+						parent[i] = v;
+					}
+				}
+				used++;
+			}
+
+			discarded += count - used;
+			s += used;
+		}
+
+		// Parents come before their children
+		depth[0] = 0;
+		for (int v=1; v<n; v++) {
+			depth[v] = depth[parent[v]] + 1;
+		}
+	}
+
+	//
+	// Compute the minimum cuts between s + i and target[i] for i below count, worker i
+	// computing the i-th one
+	//
+	private void solveCuts(int s, int count, int[] target, long[] value, boolean[][] side) {
+		if (count == 1) {
+			solveCut(0, s, target[0], value, side);
+			return;
+		}
+
+		ArrayList<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+		for (int i=0; i<count; i++) {
+			final int worker = i;
+			final int v = s + i;
+
+			tasks.add(new Callable<Object>() {
+				public Object call() {
+					solveCut(worker, v, target[worker], value, side);
+					return null;
+				}
+			});
+		}
+
+		for (Future<Object> f : pool.invokeAll(tasks)) {
+			try {
+				f.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while building the tree", e);
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("Minimum cut failed", e.getCause());
+			}
+		}
+	}
+
+	private void solveCut(int worker, int s, int t, long[] value, boolean[][] side) {
+		ResidualNetwork network = networks[worker];
+		Preflow_Push solver = solvers[worker];
+
+		network.source = s;
+		network.sink = t;
+		solver.runPhaseOne();
+
+		long flow = 0;
+		for (int a=network.first[t]; a<network.first[t+1]; a++) {
+			flow -= network.flow[a];
+		}
+		value[worker] = flow;
+		side[worker] = solver.getSourceSide();
+	}
+
+	//
+	// Return the minimum cut between vertices u and w, the lightest edge on their tree path.
+	// Takes time linear in the length of the path
+	//
+	public double minCut(int u, int w) {
+		if (u == w) {
+			return Double.POSITIVE_INFINITY;
+		}
+
+		long min = Long.MAX_VALUE;
+		while (u != w) {
+			if (depth[u] >= depth[w]) {
+				min = Math.min(min, weight[u]);
+				u = parent[u];
+			} else {
+				min = Math.min(min, weight[w]);
+				w = parent[w];
+			}
+		}
+
+		return net.toValue(min);
+	}
+
+	public double minCut(Vertex u, Vertex w) {
+		int i = u.getId();
+		int j = w.getId();
+
+		if (i < 0 || i >= n || net.vertices[i] != u || j < 0 || j >= n || net.vertices[j] != w) {
+			throw new IllegalArgumentException("Vertex is not part of the network");
+		}
+		return minCut(i, j);
+	}
+}
@@ -0,0 +1,604 @@
+//
+// Hochbaum's pseudoflow algorithm (HPF). Phase one keeps a normalized forest in
+// which only roots carry excess, and merges strong trees into weak ones until
+// the strong vertices form a minimum cut. Phase two recovers a feasible flow
+//
+
+package algorithm;
+
+import java.util.*;
+
+import util.*;
+
+
+public class Hochbaum_Pseudoflow {
+
+	//
+	// Rules for choosing the next strong root to process
+	//
+	public enum Processing {
+		// Strong root of minimum label
+		LOWEST_LABEL,
+		// Strong root of maximum label. Seldom sees the gap below its root, so on
+		// meshes it climbs far more labels than the lowest label rule
+		HIGHEST_LABEL
+	}
+
+	// Residual network the algorithm runs on, s and t are not part of the forest
+	private ResidualNetwork net;
+	private int n;
+
+	// Label and excess of every vertex, only roots have nonzero excess. labelCount[l]
+	// is the number of vertices other than s and t with label l
+	private int[] label;
+	private long[] excess;
+	private int[] labelCount;
+
+	// Forest of the vertices. parentArc[v] leads from v to parent[v], excess moves
+	// along it towards the root. Children are kept in doubly linked sibling lists
+	private int[] parent;
+	private int[] parentArc;
+	private int[] firstChild;
+	private int[] nextSibling;
+	private int[] prevSibling;
+
+	// Next child to descend into while a root's tree is searched, and the next arc
+	// of every vertex to try as a merger
+	private int[] nextScan;
+	private int[] current;
+
+	// Strong roots, in one bucket per label. bucket[l] is the first root of label l
+	// and nextInBucket[v] the one after v, -1 ends a bucket. Roots that stopped
+	// being strong roots are dropped when they are taken
+	private Processing processing = Processing.LOWEST_LABEL;
+	private int[] bucket;
+	private int[] nextInBucket;
+	private boolean[] inBucket;
+	private int lowestBucket;
+	private int highestBucket;
+
+	// Vertices in strong trees, filled when a minimum cut is checked
+	private boolean[] strong;
+	private int[] stack;
+
+	// Path and its vertices for flow recovery
+	private int[] path;
+	private int[] pathVertex;
+	private boolean[] onPath;
+
+	// Operation counts of the last run
+	private long mergers;
+	private long relabels;
+
+	//
+	// Test interface of this class
+	//
+	public static void HPF(SimpleGraph graph, Hashtable table) {
+		HPF(graph, table, Processing.LOWEST_LABEL);
+	}
+
+	public static void HPF(ResidualNetwork net) {
+		HPF(net, Processing.LOWEST_LABEL);
+	}
+
+	public static void HPF(SimpleGraph graph, Hashtable table, Processing processing) {
+		HPF(new ResidualNetwork(graph), processing);
+	}
+
+	public static void HPF(ResidualNetwork net, Processing processing) {
+		// Start recording running time in ms
+		long start = System.currentTimeMillis();
+
+		Hochbaum_Pseudoflow hpf = new Hochbaum_Pseudoflow(net);
+		hpf.setProcessing(processing);
+		Double maxFlow = hpf.run();
+
+		// End recording running time in ms
+		long end = System.currentTimeMillis();
+
+		System.out.println("Hochbaum Pseudoflow (" + processing + "): \nruntime is " + (end - start)
+				+ "ms, maximum flow is " + maxFlow + "\nmergers " + hpf.mergers + ", relabels " + hpf.relabels + "\n");
+	}
+
+	public Hochbaum_Pseudoflow(ResidualNetwork net) {
+		this.net = net;
+		this.n = net.numVertices;
+
+		this.label = new int[n];
+		this.excess = new long[n];
+		this.labelCount = new int[n + 1];
+		this.parent = new int[n];
+		this.parentArc = new int[n];
+		this.firstChild = new int[n];
+		this.nextSibling = new int[n];
+		this.prevSibling = new int[n];
+		this.nextScan = new int[n];
+		this.current = new int[n];
+		this.bucket = new int[n + 1];
+		this.nextInBucket = new int[n];
+		this.inBucket = new boolean[n];
+		this.strong = new boolean[n];
+		this.stack = new int[n];
+		this.path = new int[n];
+		this.pathVertex = new int[n + 1];
+		this.onPath = new boolean[n];
+	}
+
+	//
+	// Set the rule for choosing the next strong root
+	//
+	public void setProcessing(Processing processing) {
+		this.processing = processing;
+	}
+
+	public long getMergers() {
+		return mergers;
+	}
+
+	public long getRelabels() {
+		return relabels;
+	}
+
+	//
+	// Compute a maximum flow of the network, return its value
+	//
+	public double run() {
+		int s = net.source;
+		int t = net.sink;
+
+		net.resetFlow();
+		mergers = 0;
+		relabels = 0;
+
+		if (s < 0 || t < 0) {
+			return 0.0;
+		}
+
+		minimumCut();
+		recoverFlow();
+
+		long maxFlow = 0;
+		for (int a=net.first[t]; a<net.first[t+1]; a++) {
+			maxFlow -= net.flow[a];
+		}
+
+		return net.toValue(maxFlow);
+	}
+
+	//
+	// Return whether v ended on the source side of the minimum cut, valid after run
+	//
+	public boolean isSourceSide(int v) {
+		if (v == net.source) {
+			return true;
+		}
+		if (v == net.sink) {
+			return false;
+		}
+
+		return strong[v];
+	}
+
+	//
+	// Phase one. Saturate the arcs out of s and into t, start with every other vertex
+	// as a tree of its own, then process strong roots until none has a label below n.
+	// Strong vertices start at label 1 and weak ones at 0. A strong root whose label
+	// has no vertex one below it cannot merge, which is the moment to check whether any
+	// strong vertex can still merge at all
+	//
+	private void minimumCut() {
+		int s = net.source;
+		int t = net.sink;
+
+		Arrays.fill(excess, 0);
+		Arrays.fill(parent, -1);
+		Arrays.fill(parentArc, -1);
+		Arrays.fill(firstChild, -1);
+		Arrays.fill(bucket, -1);
+		Arrays.fill(inBucket, false);
+		Arrays.fill(labelCount, 0);
+		lowestBucket = n;
+		highestBucket = 0;
+
+		for (int a=net.first[s]; a<net.first[s+1]; a++) {
+			long delta = net.residual(a);
+
+			if (delta > 0) {
+				net.push(a, delta);
+				if (net.head[a] != t) {
+					excess[net.head[a]] += delta;
+				}
+			}
+		}
+		for (int b=net.first[t]; b<net.first[t+1]; b++) {
+			int a = net.mate[b];
+			long delta = net.residual(a);
+
+			if (delta > 0 && net.head[b] != s) {
+				net.push(a, delta);
+				excess[net.head[b]] -= delta;
+			}
+		}
+
+		for (int v=0; v<n; v++) {
+			label[v] = excess[v] > 0 ? 1 : 0;
+			current[v] = net.first[v];
+			if (v != s && v != t) {
+				labelCount[label[v]]++;
+				if (excess[v] > 0) {
+					addStrongRoot(v);
+				}
+			}
+		}
+		label[s] = n;
+		label[t] = 0;
+
+		long checked = -1;
+		int r;
+		while ((r = nextStrongRoot()) >= 0) {
+			int l = label[r];
+
+			if (l > 0 && labelCount[l - 1] == 0 && mergers != checked) {
+				checked = mergers;
+				if (markStrong()) {
+					return;
+				}
+			}
+			processRoot(r);
+		}
+		markStrong();
+	}
+
+	//
+	// Mark the vertices of strong trees. Return whether none of them has a residual
+	// arc into a weak vertex, which makes the strong vertices a minimum cut
+	//
+	private boolean markStrong() {
+		int s = net.source;
+		int t = net.sink;
+		int size = 0;
+
+		Arrays.fill(strong, false);
+		for (int v=0; v<n; v++) {
+			if (v != s && v != t && parent[v] < 0 && excess[v] > 0) {
+				strong[v] = true;
+				stack[size++] = v;
+			}
+		}
+		while (size > 0) {
+			int v = stack[--size];
+
+			for (int c=firstChild[v]; c>=0; c=nextSibling[c]) {
+				strong[c] = true;
+				stack[size++] = c;
+			}
+		}
+
+		for (int v=0; v<n; v++) {
+			if (!strong[v]) {
+				continue;
+			}
+			for (int a=net.first[v]; a<net.first[v+1]; a++) {
+				int w = net.head[a];
+
+				if (w != s && w != t && !strong[w] && net.residual(a) > 0) {
+					return false;
+				}
+			}
+		}
+
+		return true;
+	}
+
+	//
+	// Search the part of the tree of r which has the label of r for an arc into a vertex one
+	// label lower. If there is one, merge the trees across it and push the excess of r to the
+	// new root. Otherwise every vertex of that part is relabeled, children before parents
+	//
+	private void processRoot(int r) {
+		int l = label[r];
+		int v = r;
+
+		nextScan[r] = firstChild[r];
+		if (findMerger(r, r)) {
+			return;
+		}
+
+		while (true) {
+			int c = nextScan[v];
+			while (c >= 0 && label[c] != l) {
+				c = nextSibling[c];
+			}
+
+			if (c >= 0) {
+				nextScan[v] = nextSibling[c];
+				v = c;
+				nextScan[v] = firstChild[v];
+				if (findMerger(v, r)) {
+					return;
+				}
+				continue;
+			}
+
+			// No merger below v, all of its residual neighbors are at l or above
+			labelCount[l]--;
+			labelCount[l + 1]++;
+			label[v] = l + 1;
+			current[v] = net.first[v];
+			relabels++;
+			if (v == r) {
+				break;
+			}
+			v = parent[v];
+		}
+
+		addStrongRoot(r);
+	}
+
+	//
+	// Look for a residual arc from v to a vertex of the label below that of v. On success
+	// merge the tree of v, rooted at r, into the tree of that vertex and push the excess
+	//
+	private boolean findMerger(int v, int r) {
+		int s = net.source;
+		int t = net.sink;
+		int end = net.first[v+1];
+
+		for (; current[v]<end; current[v]++) {
+			int a = current[v];
+			int w = net.head[a];
+
+			if (w != s && w != t && label[w] == label[v] - 1 && net.residual(a) > 0) {
+				merge(v, w, a);
+				pushExcess(r);
+				mergers++;
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	//
+	// Make v the root of its tree by reversing the path up from it, then hang it below w
+	// through arc a
+	//
+	private void merge(int v, int w, int a) {
+		int newParent = w;
+		int newArc = a;
+		int u = v;
+
+		while (parent[u] >= 0) {
+			int oldParent = parent[u];
+			int oldArc = parentArc[u];
+
+			removeChild(u);
+			addChild(newParent, u, newArc);
+			newParent = u;
+			newArc = net.mate[oldArc];
+			u = oldParent;
+		}
+		addChild(newParent, u, newArc);
+	}
+
+	//
+	// Move the excess of v up to the root of its tree. Where an arc cannot take all of it,
+	// the arc is saturated and cut from the tree, and the vertex below keeps the rest as the
+	// root of a new strong tree
+	//
+	private void pushExcess(int v) {
+		while (excess[v] > 0 && parent[v] >= 0) {
+			int p = parent[v];
+			int a = parentArc[v];
+			long delta = Math.min(excess[v], net.residual(a));
+
+			net.push(a, delta);
+			excess[v] -= delta;
+			excess[p] += delta;
+			if (excess[v] > 0) {
+				removeChild(v);
+				addStrongRoot(v);
+			}
+			v = p;
+		}
+
+		if (parent[v] < 0 && excess[v] > 0) {
+			addStrongRoot(v);
+		}
+	}
+
+	private void addChild(int p, int c, int a) {
+		parent[c] = p;
+		parentArc[c] = a;
+		prevSibling[c] = -1;
+		nextSibling[c] = firstChild[p];
+		if (firstChild[p] >= 0) {
+			prevSibling[firstChild[p]] = c;
+		}
+		firstChild[p] = c;
+	}
+
+	private void removeChild(int c) {
+		int p = parent[c];
+
+		if (prevSibling[c] >= 0) {
+			nextSibling[prevSibling[c]] = nextSibling[c];
+		} else {
+			firstChild[p] = nextSibling[c];
+		}
+		if (nextSibling[c] >= 0) {
+			prevSibling[nextSibling[c]] = prevSibling[c];
+		}
+		parent[c] = -1;
+		parentArc[c] = -1;
+	}
+
+	private void addStrongRoot(int v) {
+		int l = label[v];
+
+		if (inBucket[v] || l >= n) {
+			return;
+		}
+
+		inBucket[v] = true;
+		nextInBucket[v] = bucket[l];
+		bucket[l] = v;
+		lowestBucket = Math.min(lowestBucket, l);
+		highestBucket = Math.max(highestBucket, l);
+	}
+
+	//
+	// Take the next strong root below label n by the processing rule, -1 if there is none
+	//
+	private int nextStrongRoot() {
+		while (lowestBucket <= highestBucket) {
+			int l = processing == Processing.LOWEST_LABEL ? lowestBucket : highestBucket;
+			int v = bucket[l];
+
+			if (v < 0) {
+				if (processing == Processing.LOWEST_LABEL) {
+					lowestBucket++;
+				} else {
+					highestBucket--;
+				}
+				continue;
+			}
+
+			bucket[l] = nextInBucket[v];
+			inBucket[v] = false;
+			if (parent[v] < 0 && excess[v] > 0 && label[v] == l) {
+				return v;
+			}
+		}
+
+		lowestBucket = n;
+		highestBucket = 0;
+		return -1;
+	}
+
+	//
+	// Phase two. Send the excess of every vertex back towards s and then the deficit of
+	// every vertex back towards t, along paths of arcs that carry flow
+	//
+	private void recoverFlow() {
+		int s = net.source;
+		int t = net.sink;
+
+		for (int v=0; v<n; v++) {
+			current[v] = net.first[v];
+		}
+		for (int v=0; v<n; v++) {
+			while (v != s && v != t && excess[v] > 0 && cancel(v, true)) {
+			}
+		}
+
+		for (int v=0; v<n; v++) {
+			current[v] = net.first[v];
+		}
+		for (int v=0; v<n; v++) {
+			while (v != s && v != t && excess[v] < 0 && cancel(v, false)) {
+			}
+		}
+	}
+
+	//
+	// Search from v against the flow (backward) or along it for s or a vertex with a deficit,
+	// respectively t, and take flow off the path found. Flow cycles met on the way are cancelled.
+	// Return false if no path is left
+	//
+	private boolean cancel(int v, boolean backward) {
+		int s = net.source;
+		int t = net.sink;
+		int depth = 0;
+		int u = v;
+
+		pathVertex[0] = v;
+		onPath[v] = true;
+		while (true) {
+			boolean target = backward ? u == s || (u != t && excess[u] < 0) : u == t;
+
+			if (u != v && target) {
+				long amount = Math.abs(excess[v]);
+				if (u != s && u != t) {
+					amount = Math.min(amount, Math.abs(excess[u]));
+				}
+				amount = Math.min(amount, pathFlow(0, depth));
+				reduceFlow(0, depth, amount, backward);
+				if (backward) {
+					excess[v] -= amount;
+					excess[u] += u != s ? amount : 0;
+				} else {
+					excess[v] += amount;
+				}
+
+				for (int i=0; i<=depth; i++) {
+					onPath[pathVertex[i]] = false;
+				}
+				return true;
+			}
+
+			// Next arc carrying flow into u, or out of it
+			int end = net.first[u+1];
+			while (current[u] < end && (backward ? net.flow[current[u]] >= 0 : net.flow[current[u]] <= 0)) {
+				current[u]++;
+			}
+
+			if (current[u] < end) {
+				int a = current[u];
+				int w = net.head[a];
+
+				if (!onPath[w]) {
+					path[depth++] = a;
+					pathVertex[depth] = w;
+					onPath[w] = true;
+					u = w;
+					continue;
+				}
+
+				// Cancel the cycle from w around to w
+				int j = depth;
+				while (pathVertex[j] != w) {
+					j--;
+				}
+				path[depth] = a;
+				reduceFlow(j, depth + 1, pathFlow(j, depth + 1), backward);
+				for (int i=j+1; i<=depth; i++) {
+					onPath[pathVertex[i]] = false;
+				}
+				depth = j;
+				u = w;
+				continue;
+			}
+
+			// Nothing more reaches u
+			onPath[u] = false;
+			if (depth == 0) {
+				return false;
+			}
+			u = pathVertex[--depth];
+			current[u]++;
+		}
+	}
+
+	//
+	// Return the least flow on the arcs path[from .. to-1]
+	//
+	private long pathFlow(int from, int to) {
+		long amount = Long.MAX_VALUE;
+
+		for (int i=from; i<to; i++) {
+			amount = Math.min(amount, Math.abs(net.flow[path[i]]));
+		}
+		return amount;
+	}
+
+	//
+	// Take amount off the flow on the arcs path[from .. to-1], which carry flow against
+	// their direction when searching backward and along it otherwise
+	//
+	private void reduceFlow(int from, int to, long amount, boolean backward) {
+		for (int i=from; i<to; i++) {
+			net.push(path[i], backward ? amount : -amount);
+		}
+	}
+}
@@ -0,0 +1,334 @@
+//
+// Maximum flow of a network whose capacities change in small batches. The flow of the last
+// solve is kept, a batch of changes is repaired locally, and the solve continues from there
+// instead of starting over
+//
+
+package algorithm;
+
+import java.math.*;
+import java.util.*;
+
+import util.*;
+
+
+public class Incremental_Flow {
+
+	//
+	// Ways of continuing from the repaired flow
+	//
+	public enum Method {
+		// Shortest augmenting paths, each costs a search but a small batch needs few
+		AUGMENTING_PATH,
+		// Preflow_Push, excess left by the changes is discharged. Its global relabeling
+		// looks at the whole network once however small the batch is
+		PREFLOW_PUSH
+	}
+
+	// Graph and its residual network, which holds the flow of the last solve
+	private SimpleGraph graph;
+	private ResidualNetwork net;
+	private Method method = Method.AUGMENTING_PATH;
+
+	// Number of every edge of the network
+	private HashMap<Edge, Integer> edgeIndex;
+
+	// Edges whose capacity went down since the last solve, and the edges inserted
+	// since, which need a new network
+	private ArrayList<Integer> decreased;
+	private HashSet<Edge> inserted;
+	private boolean rebuild;
+
+	// Excess of every vertex while the flow is repaired, negative for a deficit
+	private long[] excess;
+
+	// Arc every vertex was reached by in the last repair search, and the search queue
+	private int[] parentArc;
+	private int[] queue;
+
+	// Search for augmenting paths from s to t
+	private Augmenting_Path path;
+
+	// Operation counts of the last solve
+	private long repairPaths;
+	private long augmentations;
+
+	public Incremental_Flow(SimpleGraph graph) {
+		this.graph = graph;
+		this.decreased = new ArrayList<Integer>();
+		this.inserted = new HashSet<Edge>();
+		build(new ResidualNetwork(graph));
+	}
+
+	//
+	// Set how the solve continues after a batch of changes, augmenting paths by default
+	//
+	public void setMethod(Method method) {
+		this.method = method;
+	}
+
+	public ResidualNetwork getNetwork() {
+		return net;
+	}
+
+	public long getRepairPaths() {
+		return repairPaths;
+	}
+
+	public long getAugmentations() {
+		return augmentations;
+	}
+
+	//
+	// Compute a maximum flow from zero by preflow-push, return its value
+	//
+	public double solve() {
+		if (rebuild) {
+			build(new ResidualNetwork(graph));
+		}
+		decreased.clear();
+		repairPaths = 0;
+		augmentations = 0;
+		return new Preflow_Push(net).run();
+	}
+
+	//
+	// Change the capacity of an edge of the graph. Takes effect at the next solve
+	//
+	public void setCapacity(Edge e, double capacity) {
+		Integer k = edgeIndex.get(e);
+
+		if (capacity < 0) {
+			throw new IllegalArgumentException("Capacity must not be negative");
+		}
+		if (k == null && !inserted.contains(e)) {
+			throw new IllegalArgumentException("Edge is not part of the network");
+		}
+
+		// Edges inserted since the last solve only get into the next network
+		e.setData(capacity);
+		if (rebuild) {
+			return;
+		}
+
+		// A capacity that needs more decimal places than the network has needs a new network
+		BigDecimal scaled = BigDecimal.valueOf(capacity).multiply(BigDecimal.valueOf(net.scale));
+		if (scaled.stripTrailingZeros().scale() > 0 || scaled.compareTo(BigDecimal.valueOf(Long.MAX_VALUE / 4)) > 0) {
+			rebuild = true;
+			return;
+		}
+
+		int a = net.edgeArc[k];
+		long value = scaled.longValueExact();
+		if (value < net.capacity[a]) {
+			decreased.add(k);
+		}
+		net.capacity[a] = value;
+	}
+
+	//
+	// Insert an edge into the graph. Takes effect at the next solve, which builds a new
+	// network and carries the flow of every other edge over
+	//
+	public Edge insertEdge(Vertex v, Vertex w, double capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("Capacity must not be negative");
+		}
+
+		Edge e = graph.insertEdge(v, w, capacity, null);
+		inserted.add(e);
+		rebuild = true;
+		return e;
+	}
+
+	//
+	// Delete an edge by setting its capacity to 0. It stays in the graph and the network,
+	// so no arc numbers change
+	//
+	public void removeEdge(Edge e) {
+		setCapacity(e, 0.0);
+	}
+
+	//
+	// Compute a maximum flow after a batch of changes, starting from the flow of the last
+	// solve. Flow above a lowered capacity is taken off its edge, which leaves excess at the
+	// tail and a deficit at the head. Both are sent along residual paths to each other or
+	// back to s and t, then the solve continues by the chosen method. Return the value
+	//
+	public double resolve() {
+		repairPaths = 0;
+		augmentations = 0;
+
+		if (rebuild && !carryFlowOver()) {
+			return solve();
+		}
+
+		int n = net.numVertices;
+		Arrays.fill(excess, 0);
+		for (int k : decreased) {
+			int a = net.edgeArc[k];
+			long over = net.flow[a] - net.capacity[a];
+
+			if (over > 0) {
+				net.push(a, -over);
+				excess[net.head[net.mate[a]]] += over;
+				excess[net.head[a]] -= over;
+			}
+		}
+		decreased.clear();
+
+		for (int v=0; v<n; v++) {
+			if (v == net.source || v == net.sink) {
+				continue;
+			}
+			// Without s and t nothing is repaired, the excess stays where it is
+			while (excess[v] < 0) {
+				if (!repair(v, false)) {
+					break;
+				}
+			}
+			while (method == Method.AUGMENTING_PATH && excess[v] > 0) {
+				if (!repair(v, true)) {
+					break;
+				}
+			}
+		}
+
+		if (method == Method.PREFLOW_PUSH) {
+			return new Preflow_Push(net).resume();
+		}
+		return augment();
+	}
+
+	//
+	// Build a new network from the graph and move the flow of every edge that was there
+	// before to it. Return false if a flow cannot be stored exactly at the new scale
+	//
+	private boolean carryFlowOver() {
+		ResidualNetwork old = net;
+
+		build(new ResidualNetwork(graph));
+		decreased.clear();
+		for (int k=0; k<old.edges.length; k++) {
+			long f = old.flow[old.edgeArc[k]];
+			BigDecimal scaled = BigDecimal.valueOf(f).multiply(BigDecimal.valueOf(net.scale))
+					.divide(BigDecimal.valueOf(old.scale));
+
+			if (scaled.stripTrailingZeros().scale() > 0) {
+				return false;
+			}
+			net.push(net.edgeArc[k], scaled.longValueExact());
+			if (net.flow[net.edgeArc[k]] > net.capacity[net.edgeArc[k]]) {
+				decreased.add(k);
+			}
+		}
+
+		return true;
+	}
+
+	private void build(ResidualNetwork network) {
+		int n = network.numVertices;
+
+		net = network;
+		rebuild = false;
+		inserted.clear();
+		edgeIndex = new HashMap<Edge, Integer>();
+		for (int k=0; k<net.edges.length; k++) {
+			edgeIndex.put(net.edges[k], k);
+		}
+		excess = new long[n];
+		parentArc = new int[n];
+		queue = new int[n];
+		path = new Augmenting_Path(net, false);
+	}
+
+	//
+	// Send the excess of v (surplus) or the deficit of v (!surplus) along one residual path.
+	// Excess goes to the nearest vertex with a deficit, to t or back to s. A deficit is
+	// filled from the nearest vertex with excess, from s or by taking flow back from t.
+	// Return false, changing nothing, if there is no such path
+	//
+	private boolean repair(int v, boolean surplus) {
+		int s = net.source;
+		int t = net.sink;
+		int front = 0;
+		int back = 0;
+		int end = -1;
+
+		if (s < 0 || t < 0) {
+			return false;
+		}
+
+		Arrays.fill(parentArc, -1);
+		queue[back++] = v;
+		while (front < back && end < 0) {
+			int u = queue[front++];
+
+			for (int b=net.first[u]; b<net.first[u+1]; b++) {
+				int w = net.head[b];
+				// The arc the path uses between u and w, walked from v
+				int a = surplus ? b : net.mate[b];
+
+				if (w == v || parentArc[w] >= 0 || net.residual(a) <= 0) {
+					continue;
+				}
+				parentArc[w] = b;
+				if (w == s || w == t || (surplus ? excess[w] < 0 : excess[w] > 0)) {
+					end = w;
+					break;
+				}
+				queue[back++] = w;
+			}
+		}
+		if (end < 0) {
+			return false;
+		}
+
+		long delta = Math.abs(excess[v]);
+		if (end != s && end != t) {
+			delta = Math.min(delta, Math.abs(excess[end]));
+		}
+		for (int w=end; w!=v; w=net.head[net.mate[parentArc[w]]]) {
+			int b = parentArc[w];
+			delta = Math.min(delta, net.residual(surplus ? b : net.mate[b]));
+		}
+		for (int w=end; w!=v; w=net.head[net.mate[parentArc[w]]]) {
+			int b = parentArc[w];
+			net.push(surplus ? b : net.mate[b], delta);
+		}
+
+		if (surplus) {
+			excess[v] -= delta;
+			excess[end] += delta;
+		} else {
+			excess[v] += delta;
+			excess[end] -= delta;
+		}
+		repairPaths++;
+		return true;
+	}
+
+	//
+	// Augment along shortest paths from s to t until t cannot be reached, then return the
+	// value of the flow
+	//
+	private double augment() {
+		int s = net.source;
+		int t = net.sink;
+
+		if (s < 0 || t < 0) {
+			return 0.0;
+		}
+
+		while (path.find(1)) {
+			path.augment();
+			augmentations++;
+		}
+
+		long maxFlow = 0;
+		for (int a=net.first[t]; a<net.first[t+1]; a++) {
+			maxFlow -= net.flow[a];
+		}
+		return net.toValue(maxFlow);
+	}
+}
@@ -0,0 +1,415 @@
+//
+// Asynchronous multi-threaded Preflow-Push, after Hong's lock-free
+// push-relabel algorithm
+//
+
+package algorithm;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+
+import util.*;
+
+
+public class Parallel_Preflow_Push {
+
+	// Residual network the algorithm runs on, its flows live in an atomic copy
+	// during the run and are written back at the end
+	private ResidualNetwork net;
+	private int n;
+	private int threads;
+
+	// Height, excess and arc flows, updated by all threads without locks.
+	// Every vertex is owned by one thread, the only one to lower its excess,
+	// lift it or push along its arcs, so a residual capacity read by the
+	// owner can only grow before the owner pushes
+	private AtomicIntegerArray height;
+	private AtomicLongArray excess;
+	private AtomicLongArray flow;
+
+	// Owner of every vertex. Vertices are dealt out in blocks of OWNER_BLOCK,
+	// so vertices numbered close together, often neighbors, mostly share one
+	private static final int OWNER_BLOCK = 64;
+	private int[] owner;
+
+	// Active vertices of every thread. A vertex goes into the inbox of its
+	// owner when its excess becomes positive and leaves it when the owner takes
+	// it out to discharge it, so it is there at most once
+	private Inbox[] inboxes;
+
+	// Threads out of work park until a push hands them some or the round ends
+	private static final long PARK_NANOS = 1000000;
+	private Thread[] workers;
+	private AtomicIntegerArray waiting;
+
+	// Number of vertices other than s and t with positive excess
+	private AtomicInteger activeCount = new AtomicInteger();
+
+	// Relabel work, counted as in Preflow_Push, all threads do together
+	// between two global relabelings
+	private long roundWork;
+	private AtomicLong roundDone = new AtomicLong();
+	private volatile boolean done;
+	private int[] queue;
+
+	// Operation counts of the last run
+	private LongAdder pushes = new LongAdder();
+	private LongAdder relabels = new LongAdder();
+	private long globalRelabels;
+
+	//
+	// Test interface of this class
+	//
+	public static void PPP(SimpleGraph graph, Hashtable table, int threads) {
+		PPP(new ResidualNetwork(graph), threads);
+	}
+
+	public static void PPP(ResidualNetwork net, int threads) {
+		// Start recording running time in ms
+		long start = System.currentTimeMillis();
+
+		Parallel_Preflow_Push ppp = new Parallel_Preflow_Push(net, threads);
+		Double maxFlow = ppp.run();
+
+		// End recording running time in ms
+		long end = System.currentTimeMillis();
+
+		System.out.println("Parallel Preflow Push (" + threads + " threads): \nruntime is " + (end - start)
+				+ "ms, maximum flow is " + maxFlow + "\npushes " + ppp.getPushes() + ", relabels "
+				+ ppp.getRelabels() + ", global relabels " + ppp.globalRelabels + "\n");
+	}
+
+	public Parallel_Preflow_Push(ResidualNetwork net, int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("At least one thread is needed");
+		}
+
+		this.net = net;
+		this.n = net.numVertices;
+		this.threads = threads;
+		this.queue = new int[n];
+		this.roundWork = n + net.numArcs / 2;
+
+		this.owner = new int[n];
+		int[] owned = new int[threads];
+		for (int v=0; v<n; v++) {
+			owner[v] = (v / OWNER_BLOCK) % threads;
+			owned[owner[v]]++;
+		}
+		this.inboxes = new Inbox[threads];
+		for (int i=0; i<threads; i++) {
+			inboxes[i] = new Inbox(owned[i]);
+		}
+	}
+
+	public long getPushes() {
+		return pushes.sum();
+	}
+
+	public long getRelabels() {
+		return relabels.sum();
+	}
+
+	public long getGlobalRelabels() {
+		return globalRelabels;
+	}
+
+	//
+	// Compute a maximum flow of the network, return its value
+	//
+	public double run() {
+		int s = net.source;
+		int t = net.sink;
+
+		if (s < 0 || t < 0) {
+			return 0.0;
+		}
+
+		net.resetFlow();
+		height = new AtomicIntegerArray(n);
+		excess = new AtomicLongArray(n);
+		flow = new AtomicLongArray(net.numArcs);
+		pushes.reset();
+		relabels.reset();
+		globalRelabels = 0;
+		done = false;
+
+		// Saturate all the arcs out of s
+		for (int a=net.first[s]; a<net.first[s+1]; a++) {
+			long delta = net.capacity[a];
+
+			if (delta > 0) {
+				flow.addAndGet(a, delta);
+				flow.addAndGet(net.mate[a], -delta);
+				excess.addAndGet(s, -delta);
+				excess.addAndGet(net.head[a], delta);
+			}
+		}
+		activeCount.set(0);
+		for (int i=0; i<threads; i++) {
+			inboxes[i].clear();
+		}
+		for (int v=0; v<n; v++) {
+			if (v != s && v != t && excess.get(v) > 0) {
+				activeCount.incrementAndGet();
+				inboxes[owner[v]].add(v);
+			}
+		}
+		endRound();
+
+		// Threads work asynchronously within a round, the last one to finish it
+		// relabels globally and checks whether all excess is back at s or in t
+		CyclicBarrier barrier = new CyclicBarrier(threads, new Runnable() {
+			@Override
+			public void run() {
+				endRound();
+			}
+		});
+
+		workers = new Thread[threads];
+		waiting = new AtomicIntegerArray(threads);
+		for (int i=0; i<threads; i++) {
+			final int id = i;
+			workers[i] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					work(id, barrier);
+				}
+			});
+		}
+		// Any thread may wake any other, so all of them exist before the first starts
+		for (int i=0; i<threads; i++) {
+			workers[i].start();
+		}
+		for (int i=0; i<threads; i++) {
+			try {
+				workers[i].join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting for workers", e);
+			}
+		}
+
+		for (int a=0; a<net.numArcs; a++) {
+			net.flow[a] = flow.get(a);
+		}
+
+		return net.toValue(excess.get(t));
+	}
+
+	//
+	// Main loop of a thread, keep discharging the active vertices of its inbox until the
+	// round's work is done or no vertex is active at all, then wait for the other threads
+	//
+	private void work(int id, CyclicBarrier barrier) {
+		Inbox inbox = inboxes[id];
+
+		while (!done) {
+			while (activeCount.get() > 0 && roundDone.get() < roundWork) {
+				int u = inbox.poll();
+
+				if (u < 0) {
+					// Excess may still arrive from other threads
+					waitForWork(id);
+					continue;
+				}
+
+				long work = discharge(u, inbox);
+				long before = roundDone.getAndAdd(work);
+				if (before < roundWork && before + work >= roundWork) {
+					wakeAll();
+				}
+			}
+
+			try {
+				barrier.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (BrokenBarrierException e) {
+				return;
+			}
+		}
+	}
+
+	//
+	// Park until another thread hands over work or the round ends. The flag is set before
+	// the last look, so a push that comes after it sees the flag and unparks this thread
+	//
+	private void waitForWork(int id) {
+		waiting.set(id, 1);
+		if (inboxes[id].isEmpty() && activeCount.get() > 0 && roundDone.get() < roundWork) {
+			LockSupport.parkNanos(this, PARK_NANOS);
+		}
+		waiting.set(id, 0);
+	}
+
+	private void wake(int id) {
+		if (waiting.get(id) != 0) {
+			LockSupport.unpark(workers[id]);
+		}
+	}
+
+	private void wakeAll() {
+		for (int i=0; i<threads; i++) {
+			wake(i);
+		}
+	}
+
+	//
+	// Apply Hong's step to u until its excess is gone or a round's work is spent: push to
+	// its lowest residual neighbor if u is above it, otherwise lift u just above it. Put u
+	// back into the inbox if it still has excess. Return the relabel work, pushes count 1
+	// so that a round always ends
+	//
+	private long discharge(int u, Inbox inbox) {
+		long work = 0;
+
+		while (work < roundWork) {
+			int minHeight = Integer.MAX_VALUE;
+			int best = -1;
+
+			for (int a=net.first[u]; a<net.first[u+1]; a++) {
+				if (net.capacity[a] - flow.get(a) > 0) {
+					int h = height.get(net.head[a]);
+
+					if (h < minHeight) {
+						minHeight = h;
+						best = a;
+					}
+				}
+			}
+
+			// Cannot happen while u has excess, as the arcs it came by lead back
+			if (best < 0) {
+				work++;
+				break;
+			}
+
+			if (height.get(u) > minHeight) {
+				long delta = Math.min(excess.get(u), net.capacity[best] - flow.get(best));
+				int w = net.head[best];
+
+				flow.addAndGet(best, delta);
+				flow.addAndGet(net.mate[best], -delta);
+				pushes.increment();
+				work++;
+
+				// Credit w before debiting u, so activeCount never drops to 0 in between
+				if (excess.getAndAdd(w, delta) == 0 && w != net.source && w != net.sink) {
+					activeCount.incrementAndGet();
+					inboxes[owner[w]].add(w);
+					wake(owner[w]);
+				}
+				if (excess.addAndGet(u, -delta) == 0) {
+					if (activeCount.decrementAndGet() == 0) {
+						wakeAll();
+					}
+					return work;
+				}
+			} else {
+				height.set(u, minHeight + 1);
+				relabels.increment();
+				work += net.first[u+1] - net.first[u] + 12;
+			}
+		}
+
+		inbox.add(u);
+		return work;
+	}
+
+	//
+	// Run between rounds while no thread works: stop once all excess has reached
+	// t or gone back to s, otherwise recompute exact heights
+	//
+	private void endRound() {
+		if (activeCount.get() == 0) {
+			done = true;
+			return;
+		}
+
+		roundDone.set(0);
+		// Vertices reaching neither s nor t keep the largest possible height
+		for (int v=0; v<n; v++) {
+			height.set(v, 2 * n - 1);
+		}
+		height.set(net.sink, 0);
+		height.set(net.source, n);
+		reverseBreadthFirst(net.sink);
+		reverseBreadthFirst(net.source);
+		globalRelabels++;
+	}
+
+	//
+	// The search of Exact_Heights on the atomic heights and flows the threads share. It
+	// runs between rounds, while no thread works
+	//
+	private void reverseBreadthFirst(int root) {
+		int unlabeled = 2 * n - 1;
+		int front = 0;
+		int back = 0;
+
+		queue[back++] = root;
+		while (front < back) {
+			int w = queue[front++];
+
+			for (int a=net.first[w]; a<net.first[w+1]; a++) {
+				int u = net.head[a];
+				int b = net.mate[a];
+
+				if (height.get(u) == unlabeled && net.capacity[b] - flow.get(b) > 0) {
+					height.set(u, height.get(w) + 1);
+					queue[back++] = u;
+				}
+			}
+		}
+	}
+
+	//
+	// Inbox of the active vertices of one thread, which any thread may add to and only its
+	// owner takes from. A ring of as many slots as the thread owns vertices is enough, as
+	// every vertex is in it at most once. Slots hold vertex + 1, 0 for an empty slot
+	//
+	private static class Inbox {
+		private AtomicIntegerArray slots;
+		private AtomicLong tail = new AtomicLong();
+		private long head;
+
+		Inbox(int capacity) {
+			this.slots = new AtomicIntegerArray(Math.max(1, capacity));
+		}
+
+		void clear() {
+			for (int i=0; i<slots.length(); i++) {
+				slots.set(i, 0);
+			}
+			tail.set(0);
+			head = 0;
+		}
+
+		void add(int v) {
+			long i = tail.getAndIncrement();
+			slots.set((int) (i % slots.length()), v + 1);
+		}
+
+		//
+		// Take the oldest vertex out, -1 if there is none yet. A slot taken by add but not
+		// yet written counts as empty until it is
+		//
+		int poll() {
+			int v = slots.getAndSet((int) (head % slots.length()), 0);
+
+			if (v == 0) {
+				return -1;
+			}
+			head++;
+			return v - 1;
+		}
+
+		boolean isEmpty() {
+			return slots.get((int) (head % slots.length())) == 0;
+		}
+	}
+}
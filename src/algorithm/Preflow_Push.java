@@ -4,230 +4,688 @@
 
 package algorithm;
 
-import java.io.*;
 import java.util.*;
 
 import util.*;
 
 
 public class Preflow_Push {
-	
+
+	//
+	// Rules for choosing the next active vertex to discharge
+	//
+	public enum Selection {
+		// First in, first out
+		FIFO,
+		// Active vertex of maximum height
+		HIGHEST_LABEL,
+		// Active vertex of minimum height
+		LOWEST_LABEL,
+		// Ahuja-Orlin excess scaling, the lowest vertex among those with excess
+		// above half the current scale
+		EXCESS_SCALING
+	}
+
+	// Residual network the algorithm runs on
+	private ResidualNetwork net;
+	private int n;
+
+	// Height, excess and current arc of every vertex
+	private int[] height;
+	private long[] excess;
+	private int[] current;
+
+	// Active vertices are vertices other than s and t with excess above
+	// activeThreshold, which is 0 for all rules but excess scaling
+	private Selection selection = Selection.HIGHEST_LABEL;
+	private long activeThreshold;
+	private boolean[] active;
+
+	// Scale of excess scaling, a power of 2 that no excess may exceed. The threshold
+	// is half of it
+	private long scale;
+
+	// Active vertices for FIFO, in a circular queue
+	private int[] fifo;
+	private int fifoFirst;
+	private int fifoSize;
+
+	// Active vertices for the other rules, kept in one bucket per height.
+	// bucket[h] is the first active vertex of height h and nextActive[v]
+	// the one after v, -1 ends a bucket
+	private int[] bucket;
+	private int[] nextActive;
+
+	// No bucket above maxActive or below minActive holds an active vertex
+	private int maxActive;
+	private int minActive;
+
+	// Vertices of height below n, kept in one doubly linked list per height
+	// together with their count, so that an emptied height is noticed at once
+	private int[] levelFirst;
+	private int[] levelNext;
+	private int[] levelPrev;
+	private int[] levelCount;
+
+	// No list above maxLevel holds a vertex
+	private int maxLevel;
+
+	// Lift everything above an emptied height to n
+	private boolean gapRelabeling = true;
+
+	// Only vertices below heightLimit are discharged, n in phase one
+	// and 2n in phase two
+	private int heightLimit;
+
+	// The last phase that was run, 0 before the first run
+	private int phase;
+
+	// Global relabeling runs once the relabel work since the last one
+	// exceeds globalRelabelFrequency * (n + m), 0 turns it off
+	private double globalRelabelFrequency = 1.0;
+	private long relabelWork;
+	private int[] queue;
+
+	// Operation counts of the last run
+	private long pushes;
+	private long relabels;
+	private long globalRelabels;
+	private long gaps;
+
 	//
 	// Test interface of this class
 	//
 	public static void PP(SimpleGraph graph, Hashtable table) {
+		PP(graph, table, Selection.HIGHEST_LABEL);
+	}
+
+	public static void PP(ResidualNetwork net) {
+		PP(net, Selection.HIGHEST_LABEL);
+	}
+
+	public static void PP(SimpleGraph graph, Hashtable table, Selection selection) {
+		PP(new ResidualNetwork(graph), selection);
+	}
+
+	public static void PP(ResidualNetwork net, Selection selection) {
 		// Start recording running time in ms
-	    long start = System.currentTimeMillis(); 
-	    
-		Double maxFlow = PreflowPush(graph, table);
-		
+	    long start = System.currentTimeMillis();
+
+		Preflow_Push pp = new Preflow_Push(net);
+		pp.setSelection(selection);
+
+		// Only the value is needed, so leave the preflow as it is
+		Double maxFlow = pp.runPhaseOne();
+
 		// End recording running time in ms
 		long end = System.currentTimeMillis();
-		
-		System.out.println("Preflow Push: \nruntime is " + (end - start) + "ms, maximum flow is " + maxFlow + "\n");
-	}
-	
-	//
-    // Search all the possible adjacent vertices lower than a given vertex,
-	// then create an adjacency list of searched vertices for the given vertex
-	//
-    public static void updateAdjacencyList(SimpleGraph g, Vertex v) {
-    	// Clear the adjacency list and set current to the start 	
-    	v.adjacencyList.clear();
-    	v.current = 0;
-    	
-    	// Update the adjacency list of v
-    	for (int i=0; i<v.incidentEdgeList.size(); i++) {
-    		Edge e = (Edge) v.incidentEdgeList.get(i);
-    		Vertex w = g.opposite(v, e);
-    		
-    		// If height of w is 1 less than v
-    		if ((int) v.getHeight() == (int) (w.getHeight() + 1) ) {
-    			// If e is a forward edge
-    			if (g.direction(v, w)
-    					// For forward edge, if there is room for flow to increase
-    					&& (double) e.getFlow() < (double) e.getData()) {
-    				v.adjacencyList.add(w);
-    			}
-    			// If e is a backward edge
-    			else if (!g.direction(v, w) 
-    					// For backward edge, if there is room for flow to decrease
-    					&& (double) e.getFlow() > 0.0) {
-    				v.adjacencyList.add(w);
-    			}
-    		}
-    	}
-    }
-    	
-    //
-    // Push operation
-    //
-	public static boolean push(SimpleGraph g, Vertex v, Vertex w) {
-		Edge e = g.findEdge(v, w);
-		Double delta = 0.0;
-		boolean isSaturating = false;
-		
-		// Forward edge
-		if (g.direction(v, w)) {			
-			// Update the smaller one
-			if ((double) v.getExcess() < (double) ((Double)e.getData()-e.getFlow())) {
-				delta = v.getExcess();
-			}else {
-				delta = (Double)e.getData() - e.getFlow();
-				isSaturating = true;
-			}
-		}
-		// Backward edge
-		else {
-			// Update the smaller one
-			if ((double) v.getExcess() < (double) e.getFlow()) {
-				delta = -v.getExcess();
-			}else {
-				delta = -e.getFlow();
-				isSaturating = true;
-			}
-		}
-			
-		e.setFlow(e.getFlow() + delta);
-		
-		//Update excess of v and w after changing a flow
-		v.updateExcess();
-		w.updateExcess();
-		
-		// False for a nonsaturating push, true for a saturating push
-		return isSaturating;
-	}
-
-	//
-	// Relabel operation
-	//
-	public static void relabel(SimpleGraph g, Vertex v) {
-		v.relabel();
-		
-		// Update adjacency list of v, once v is relabeled
-		updateAdjacencyList(g, v);
-		
-		// Update adjacency list of related vertices concerning v, once v is relabeled
-		for (int i=0; i<v.incidentEdgeList.size(); i++) {
-			Edge e = (Edge) v.incidentEdgeList.get(i);
-			Vertex w = g.opposite(v, e);
-			
-			// Only update vertices that have v in their adjacency lists
-			if (w.adjacencyList.contains(v)) {
-				updateAdjacencyList(g, w);
-			}
-		}
-	}
-	
+
+		System.out.println("Preflow Push (" + selection + "): \nruntime is " + (end - start) + "ms, maximum flow is " + maxFlow
+				+ "\npushes " + pp.pushes + ", relabels " + pp.relabels + ", global relabels " + pp.globalRelabels + ", gaps " + pp.gaps + "\n");
+	}
+
 	//
 	// Preflow-Push algorithm main process
+	// Flows and heights are copied back to the graph afterwards, which also
+	// brings the excesses of the vertices up to date
 	//
 	public static Double PreflowPush(SimpleGraph graph, Hashtable table) {
-		LinkedList eList = graph.edgeList;
-		LinkedList vList = graph.vertexList;
-		
-		// Use a max heap to store vertices which have positive excess
-		PriorityQueue<Vertex> excessMaxHeap = new PriorityQueue<Vertex>(
-				graph.numVertices(), new Comparator<Vertex>() { 
-		    @Override
-		    public int compare(Vertex v, Vertex w) {
-		    	return w.getHeight() - v.getHeight();
-		    }
-		});
-		
-		// Initialize height for all the vertices		
-		for (int i=0; i<vList.size(); i++) {
-			Vertex v = (Vertex) vList.get(i);
-			
-			if (v.isSource()) {
-				v.setHeight(graph.numVertices());
-			}else {
-				v.setHeight(0);
-			}
-		}
-
-		// Initialize flow for all the edges
-		for (int i=0; i<eList.size(); i++) {
-			Edge e = (Edge) eList.get(i);
-			
-			if (e.getFirstEndpoint().getName().equals("s") 
-					|| e.getSecondEndpoint().getName().equals("s")) {
-				e.setFlow((Double) e.getData());
-			}else {
-				e.setFlow(0.0);
-			}
-		}
-	
-		// Update excess for all the vertices
-		// Initially add positive-excess vertices to max heap 
-		for (int i=0; i<vList.size(); i++) {
-			Vertex v = (Vertex) vList.get(i);
-			v.updateExcess();
-			
-			if ((double) v.getExcess() > 0.0) {
-				excessMaxHeap.add(v);
-			}
-		}
-
-		// Start algorithm
-		while (!excessMaxHeap.isEmpty()) {
-			
-			Vertex v = excessMaxHeap.poll();
-			
-			// If v hasn't set up adjacency list yet, set it up
-			if (v.adjacencyList.isEmpty()) {
-				updateAdjacencyList(graph, v);
-			}
-			
-			// Case 1: Relabel
-			if ((int) v.current == v.adjacencyList.size()) {
-				relabel(graph, v); 
-				
-				// Add v to max heap again if excess of v is positive
-				if ((double) v.getExcess() > 0.0 
-						&& !v.getName().equals("t") 
-						&& !excessMaxHeap.contains(v)) {
-					excessMaxHeap.add(v);
+		ResidualNetwork net = new ResidualNetwork(graph);
+		Preflow_Push pp = new Preflow_Push(net);
+		double maxFlow = pp.run();
+
+		net.writeFlows();
+		for (int v=0; v<net.numVertices; v++) {
+			net.vertices[v].setHeight(pp.height[v]);
+		}
+
+		return (Double) maxFlow;
+	}
+
+	public Preflow_Push(ResidualNetwork net) {
+		this.net = net;
+		this.n = net.numVertices;
+		this.height = new int[n];
+		this.excess = new long[n];
+		this.current = new int[n];
+		this.active = new boolean[n];
+
+		// Heights never exceed 2n-1
+		this.bucket = new int[2 * n];
+		this.nextActive = new int[n];
+		this.fifo = new int[n];
+		this.queue = new int[n];
+
+		this.levelFirst = new int[n];
+		this.levelNext = new int[n];
+		this.levelPrev = new int[n];
+		this.levelCount = new int[n];
+	}
+
+	//
+	// Set how much relabel work, relative to the size of the network, is done between
+	// two global relabelings. 0 disables global relabeling
+	//
+	public void setGlobalRelabelFrequency(double frequency) {
+		this.globalRelabelFrequency = frequency;
+	}
+
+	//
+	// Choose the rule for selecting the next active vertex, highest label by default
+	//
+	public void setSelection(Selection selection) {
+		this.selection = selection;
+	}
+
+	//
+	// Turn the gap heuristic on or off
+	//
+	public void setGapRelabeling(boolean gapRelabeling) {
+		this.gapRelabeling = gapRelabeling;
+	}
+
+	//
+	// Return 1 if only phase one was run, so the arc flows form a maximum preflow,
+	// 2 if they form a maximum flow, 0 before the first run
+	//
+	public int getPhase() {
+		return phase;
+	}
+
+	public long getPushes() {
+		return pushes;
+	}
+
+	public long getRelabels() {
+		return relabels;
+	}
+
+	public long getGlobalRelabels() {
+		return globalRelabels;
+	}
+
+	public long getGaps() {
+		return gaps;
+	}
+
+	//
+	// Compute a maximum flow of the network by running both phases, return its value
+	//
+	public double run() {
+		double maxFlow = runPhaseOne();
+
+		runPhaseTwo();
+		return maxFlow;
+	}
+
+	//
+	// Phase one: compute a maximum preflow, discharging only vertices below height n.
+	// Afterwards the excess of t is the maximum flow value and the minimum cut is known,
+	// but vertices on the source side of the cut may still hold excess
+	//
+	public double runPhaseOne() {
+		return runPhaseOne(false);
+	}
+
+	//
+	// Compute a maximum flow by running both phases from the flow already on the arcs
+	// instead of from zero, e.g. the last maximum flow after a few capacities changed.
+	// The flow has to respect the capacities, and vertices other than s and t may have
+	// excess but no deficit. Return its value
+	//
+	public double resume() {
+		double maxFlow = runPhaseOne(true);
+
+		runPhaseTwo();
+		return maxFlow;
+	}
+
+	private double runPhaseOne(boolean warm) {
+		int s = net.source;
+		int t = net.sink;
+
+		phase = 1;
+		if (s < 0 || t < 0) {
+			return 0.0;
+		}
+
+		// Initialize height, excess and current arc for all the vertices
+		if (!warm) {
+			net.resetFlow();
+		}
+		Arrays.fill(height, 0);
+		Arrays.fill(excess, 0);
+		if (warm) {
+			for (int v=0; v<n; v++) {
+				for (int a=net.first[v]; a<net.first[v+1]; a++) {
+					excess[v] -= net.flow[a];
+				}
+			}
+		}
+		activeThreshold = 0;
+		clearActive();
+		pushes = 0;
+		relabels = 0;
+		globalRelabels = 0;
+		gaps = 0;
+		relabelWork = 0;
+		heightLimit = n;
+		for (int v=0; v<n; v++) {
+			current[v] = net.first[v];
+		}
+		height[s] = n;
+		buildLevels();
+
+		// Saturate all the arcs out of s
+		for (int a=net.first[s]; a<net.first[s+1]; a++) {
+			long delta = net.residual(a);
+
+			if (delta > 0) {
+				net.push(a, delta);
+				excess[s] -= delta;
+				excess[net.head[a]] += delta;
+				activate(net.head[a]);
+			}
+		}
+		if (warm) {
+			for (int v=0; v<n; v++) {
+				activate(v);
+			}
+		}
+
+		// Start from exact distance labels
+		if (globalRelabelFrequency > 0.0) {
+			globalRelabel();
+		}
+
+		dischargeAll();
+		return net.toValue(excess[t]);
+	}
+
+	//
+	// Phase two: return the excess left by phase one to s, turning the maximum preflow
+	// into a maximum flow
+	//
+	public void runPhaseTwo() {
+		if (phase != 1) {
+			throw new IllegalStateException("Phase one has to be run before phase two");
+		}
+
+		phase = 2;
+		if (net.source < 0 || net.sink < 0) {
+			return;
+		}
+
+		heightLimit = 2 * n;
+		activeThreshold = 0;
+		clearActive();
+		for (int v=0; v<n; v++) {
+			activate(v);
+		}
+
+		dischargeAll();
+	}
+
+	//
+	// Return for every vertex whether it is on the source side of the minimum cut,
+	// i.e. whether it cannot reach t in the residual network. Needs phase one
+	//
+	public boolean[] getSourceSide() {
+		if (phase == 0) {
+			throw new IllegalStateException("Phase one has to be run before the cut is known");
+		}
+
+		boolean[] sourceSide = new boolean[n];
+		Arrays.fill(sourceSide, true);
+		if (net.sink < 0) {
+			return sourceSide;
+		}
+
+		int front = 0;
+		int back = 0;
+
+		sourceSide[net.sink] = false;
+		queue[back++] = net.sink;
+		while (front < back) {
+			int w = queue[front++];
+
+			for (int a=net.first[w]; a<net.first[w+1]; a++) {
+				int u = net.head[a];
+
+				if (sourceSide[u] && net.residual(net.mate[a]) > 0) {
+					sourceSide[u] = false;
+					queue[back++] = u;
+				}
+			}
+		}
+
+		return sourceSide;
+	}
+
+	//
+	// Discharge active vertices in the order of the selection rule until no vertex below
+	// heightLimit has excess
+	//
+	private void dischargeAll() {
+		double threshold = globalRelabelFrequency * (n + net.numArcs / 2);
+		int v;
+
+		scale = 1;
+
+		// Excess scaling starts with the smallest power of 2 at least the largest excess
+		if (selection == Selection.EXCESS_SCALING) {
+			for (v=0; v<n; v++) {
+				while (isDischargeable(v) && excess[v] > scale) {
+					scale *= 2;
 				}
 			}
-			// Case 2: Push
-			else {
-				Vertex w = (Vertex) v.adjacencyList.get(v.current);
-				Edge e = graph.findEdge(v, w);
-				boolean isSaturatingPush;
-				
-				isSaturatingPush = push(graph, v, w);	
-				
-				// Add v to max heap again if excess of v is positive
-				if ((double) v.getExcess() > 0.0 
-						&& !v.getName().equals("t") 
-						&& !excessMaxHeap.contains(v)) {
-					excessMaxHeap.add(v);
+			resetActive(scale / 2);
+		}
+
+		while (true) {
+			while ((v = nextActive()) >= 0) {
+				discharge(v);
+
+				if (globalRelabelFrequency > 0.0 && relabelWork > threshold) {
+					globalRelabel();
 				}
-				
-				// Add v to max heap again if excess of v is positive
-				if ((double) w.getExcess() > 0.0 
-						&& !w.getName().equals("t") 
-						&& !excessMaxHeap.contains(w)) {
-					excessMaxHeap.add(w);
+			}
+
+			// The phase at scale 1 moves every excess, so none is left after it
+			if (selection != Selection.EXCESS_SCALING || !hasExcess() || scale == 1) {
+				break;
+			}
+
+			// No large excess is left, so halve the scale
+			scale /= 2;
+			resetActive(scale / 2);
+		}
+	}
+
+	//
+	// Push from v until its excess is gone, relabel whenever v runs out of admissible arcs
+	//
+	private void discharge(int v) {
+		int end = net.first[v+1];
+		boolean scaling = selection == Selection.EXCESS_SCALING;
+
+		while (excess[v] > activeThreshold && height[v] < heightLimit) {
+			// Case 1: Relabel
+			if (current[v] == end) {
+				relabel(v);
+
+				// Under excess scaling v may not be the lowest any more
+				if (scaling) {
+					break;
 				}
-				
-				// If the push is a saturating push, move to next edge
-				if (isSaturatingPush) {
-					v.current++;
+				continue;
+			}
+
+			// Case 2: Push along the current arc if it is admissible
+			int a = current[v];
+			int w = net.head[a];
+
+			if (height[v] == height[w] + 1 && net.residual(a) > 0) {
+				push(v, a);
+				activate(w);
+
+				// Under excess scaling w is now the lowest vertex with large excess
+				if (scaling && active[w]) {
+					break;
 				}
 			}
+
+			// If the current arc is saturated, move to next arc
+			if (excess[v] > activeThreshold) {
+				current[v]++;
+			}
 		}
-		
-		// Calculate the maximum flow
-		double maxFlow = 0.0;
-		Vertex s = (Vertex) table.get("s");
-		
-		for (int i=0; i<s.incidentEdgeList.size(); i++) {
-			Edge e = (Edge) s.incidentEdgeList.get(i);
-			maxFlow = maxFlow + e.getFlow();
+
+		activate(v);
+	}
+
+	//
+	// Push operation
+	//
+	private void push(int v, int a) {
+		int w = net.head[a];
+		long delta = Math.min(excess[v], net.residual(a));
+
+		// Under excess scaling no excess may grow beyond the scale
+		if (selection == Selection.EXCESS_SCALING && w != net.source && w != net.sink) {
+			delta = Math.min(delta, scale - excess[w]);
+		}
+
+		net.push(a, delta);
+		excess[v] -= delta;
+		excess[w] += delta;
+		pushes++;
+	}
+
+	//
+	// Relabel operation, lift v just above its lowest residual neighbor
+	//
+	private void relabel(int v) {
+		int minHeight = Integer.MAX_VALUE;
+
+		// v is the last vertex of its height, so it cannot reach t any more
+		if (gapRelabeling && height[v] < n && levelCount[height[v]] == 1) {
+			gap(height[v]);
+			return;
+		}
+
+		for (int a=net.first[v]; a<net.first[v+1]; a++) {
+			if (net.residual(a) > 0 && height[net.head[a]] < minHeight) {
+				minHeight = height[net.head[a]];
+			}
+		}
+
+		removeFromLevel(v);
+		height[v] = minHeight + 1;
+		addToLevel(v);
+		current[v] = net.first[v];
+		relabels++;
+		relabelWork += net.first[v+1] - net.first[v] + 12;
+	}
+
+	//
+	// Global relabel operation, set every height to its exact value
+	//
+	private void globalRelabel() {
+		Exact_Heights.label(net, height, queue);
+
+		// Heights changed, so rebuild the lists and buckets and restart the arc scans
+		buildLevels();
+		for (int v=0; v<n; v++) {
+			current[v] = net.first[v];
+		}
+		resetActive(activeThreshold);
+
+		relabelWork = 0;
+		globalRelabels++;
+	}
+
+	//
+	// Return whether v may be discharged in the current phase, i.e. it is neither
+	// s nor t, has positive excess and is below the height limit
+	//
+	private boolean isDischargeable(int v) {
+		return excess[v] > 0 && height[v] < heightLimit && v != net.source && v != net.sink;
+	}
+
+	private boolean hasExcess() {
+		for (int v=0; v<n; v++) {
+			if (isDischargeable(v)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	//
+	// Add v to the active vertices if it is dischargeable with excess above the threshold
+	//
+	private void activate(int v) {
+		if (!active[v] && excess[v] > activeThreshold && isDischargeable(v)) {
+			active[v] = true;
+
+			if (selection == Selection.FIFO) {
+				fifo[(fifoFirst + fifoSize++) % n] = v;
+				return;
+			}
+
+			int h = height[v];
+			nextActive[v] = bucket[h];
+			bucket[h] = v;
+			if (h > maxActive) {
+				maxActive = h;
+			}
+			if (h < minActive) {
+				minActive = h;
+			}
+		}
+	}
+
+	//
+	// Remove and return the next active vertex according to the selection rule,
+	// -1 if there is none
+	//
+	private int nextActive() {
+		int v;
+
+		if (selection == Selection.FIFO) {
+			if (fifoSize == 0) {
+				return -1;
+			}
+			v = fifo[fifoFirst];
+			fifoFirst = (fifoFirst + 1) % n;
+			fifoSize--;
+			active[v] = false;
+			return v;
+		}
+
+		int h;
+		if (selection == Selection.HIGHEST_LABEL) {
+			while (maxActive >= 0 && bucket[maxActive] < 0) {
+				maxActive--;
+			}
+			h = maxActive;
+		} else {
+			while (minActive <= maxActive && bucket[minActive] < 0) {
+				minActive++;
+			}
+			h = minActive <= maxActive ? minActive : -1;
+		}
+
+		if (h < 0) {
+			// Every bucket is empty
+			maxActive = -1;
+			minActive = 2 * n;
+			return -1;
+		}
+
+		v = bucket[h];
+		bucket[h] = nextActive[v];
+		active[v] = false;
+		return v;
+	}
+
+	private void clearActive() {
+		Arrays.fill(active, false);
+		Arrays.fill(bucket, -1);
+		maxActive = -1;
+		minActive = 2 * n;
+		fifoFirst = 0;
+		fifoSize = 0;
+	}
+
+	//
+	// Rebuild the active vertices with a new threshold
+	//
+	private void resetActive(long threshold) {
+		activeThreshold = threshold;
+		clearActive();
+		for (int v=0; v<n; v++) {
+			activate(v);
+		}
+	}
+
+	//
+	// Gap relabel operation, no vertex is left at height h once the last one moves up,
+	// so lift every vertex from h up to n-1 to n
+	//
+	private void gap(int h) {
+		boolean buckets = selection != Selection.FIFO;
+
+		for (int k=h; k<=maxLevel; k++) {
+			// Lifted active vertices are put back into the bucket of height n,
+			// the FIFO queue does not depend on heights
+			if (buckets) {
+				bucket[k] = -1;
+			}
+
+			for (int v=levelFirst[k]; v>=0; v=levelNext[v]) {
+				height[v] = n;
+				current[v] = net.first[v];
+				if (buckets && active[v]) {
+					active[v] = false;
+					activate(v);
+				}
+			}
+
+			levelFirst[k] = -1;
+			levelCount[k] = 0;
+		}
+
+		maxLevel = h - 1;
+		gaps++;
+	}
+
+	//
+	// Put every vertex of height below n other than s into the list of its height
+	//
+	private void buildLevels() {
+		Arrays.fill(levelFirst, -1);
+		Arrays.fill(levelCount, 0);
+		maxLevel = -1;
+
+		for (int v=0; v<n; v++) {
+			if (v != net.source) {
+				addToLevel(v);
+			}
+		}
+	}
+
+	private void addToLevel(int v) {
+		int h = height[v];
+
+		if (h < n) {
+			levelPrev[v] = -1;
+			levelNext[v] = levelFirst[h];
+			if (levelFirst[h] >= 0) {
+				levelPrev[levelFirst[h]] = v;
+			}
+			levelFirst[h] = v;
+			levelCount[h]++;
+			if (h > maxLevel) {
+				maxLevel = h;
+			}
+		}
+	}
+
+	private void removeFromLevel(int v) {
+		int h = height[v];
+
+		if (h < n) {
+			if (levelPrev[v] >= 0) {
+				levelNext[levelPrev[v]] = levelNext[v];
+			} else {
+				levelFirst[h] = levelNext[v];
+			}
+			if (levelNext[v] >= 0) {
+				levelPrev[levelNext[v]] = levelPrev[v];
+			}
+			levelCount[h]--;
 		}
-		
-		return (Double) maxFlow;
 	}
 }
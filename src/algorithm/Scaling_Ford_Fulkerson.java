@@ -5,16 +5,9 @@
 package algorithm;
 
 import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Hashtable;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Queue;
 
 import util.*;
 
@@ -27,9 +20,26 @@ public class Scaling_Ford_Fulkerson {
 	 * Code to test the methods of this class.
 	 */
 	public static void SFF(SimpleGraph graph, Hashtable table) {
-		Double result[] = FFScaling(toFlowGraph(graph));
+		SFF(new ResidualNetwork(graph));
+	}
+
+	public static void SFF(ResidualNetwork net) {
+		SFF(net, false);
+	}
+
+	/**
+	 * Run the algorithm and print its result.
+	 * 
+	 * @param net           The residual network
+	 * @param bidirectional Whether to search for paths from s and t at once
+	 */
+	public static void SFF(ResidualNetwork net, boolean bidirectional) {
+		Augmenting_Path path = new Augmenting_Path(net, bidirectional);
+		Double result[] = FFScaling(net, path);
 		
-		System.out.println("Scaling Ford Fulkerson: \nruntime is " + result[0].intValue() + "ms, maximum flow is " + result[1] + "\n");
+		System.out.println("Scaling Ford Fulkerson" + (bidirectional ? " (bidirectional)" : "") + ": \nruntime is "
+				+ result[0].intValue() + "ms, maximum flow is " + result[1]
+				+ "\nvertices visited per augmentation " + path.getVisited() / Math.max(1, path.getPaths()) + "\n");
 	}
 
 	public static List<File> getFiles(String path) {
@@ -49,253 +59,48 @@ public class Scaling_Ford_Fulkerson {
 	/**
 	 * Compute the maximum flow value of a network flow graph.
 	 * 
-	 * @param flowGraph The network flow graph to compute maximum flow
-	 * @return The maximum flow value of flowGraph
-	 */
-	@SuppressWarnings("unchecked")
-	public static Double[] FFScaling(SimpleGraph flowGraph) {
-		Long startTime = System.currentTimeMillis();
-		Double maxFlow = 0.0;
-		HashMap<String, Vertex> vertices = getVertexMap(flowGraph);
-		// Initial delta
-		Integer delta = 1;
-		Double maxCapOutS = 0.0, t = 0.0;
-
-		for (Iterator<Edge> iterator = flowGraph.incidentEdges(vertices.get("s")); iterator.hasNext();) {
-			if ((t = ((Double[]) iterator.next().getData())[0]) > maxCapOutS) {
-				maxCapOutS = t;
-			}
-		}
-		while (2 * delta < maxCapOutS) {
-			delta *= 2;
-		}
-
-		while (delta >= 1) {
-			SimpleGraph residualGraph = toResidualGraph(flowGraph);
-			SimpleGraph limitedResidualGraph = toLimitedResidualGraph(residualGraph, delta);
-
-			ArrayList<String> path;
-			while (null != (path = findPath(limitedResidualGraph))) {
-				Double bottleneck = getBottleneck(limitedResidualGraph, path);
-				maxFlow += bottleneck;
-				updateFlowGraph(flowGraph, path, bottleneck);
-				residualGraph = toResidualGraph(flowGraph);
-				limitedResidualGraph = toLimitedResidualGraph(residualGraph, delta);
-			}
-			delta /= 2;
-		}
-		//System.out.println("time:" + (System.currentTimeMillis() - startTime) + "ms");
-		return new Double[] { (double) (System.currentTimeMillis() - startTime), maxFlow };
-	}
-
-	/**
-	 * This method updates a network flow graph using a s-t path with its
-	 * "bottleneck" value.
+	 * A delta phase only looks at residual capacities of at least delta. The
+	 * capacities of the network are whole numbers, so the phase with delta 1
+	 * uses every arc with residual capacity.
 	 * 
-	 * @param flowGraph  A network flow graph.
-	 * @param path       A List that contains the name of the vetices of a s-t path,
-	 *                   starting with "s", end with "t"
-	 * @param bottleneck The value of the bottleneck of the path
+	 * @param net The residual network to compute maximum flow, its flow is
+	 *            reset first
+	 * @return The running time in ms and the maximum flow value of net
 	 */
-	@SuppressWarnings("unchecked")
-	private static void updateFlowGraph(SimpleGraph flowGraph, List<String> path, Double bottleneck) {
-		HashMap<String, Vertex> vertices = getVertexMap(flowGraph);
-		for (int i = 0; i < path.size() - 1; i++) {
-			Vertex v = vertices.get(path.get(i));
-			boolean foundForwardEdge = false;
-			for (Iterator<Edge> iterator = flowGraph.incidentEdges(v); iterator.hasNext();) {
-				Edge e;
-				if ((e = iterator.next()).getSecondEndpoint().getName().equals(path.get(i + 1))) {
-					Double[] data = (Double[]) e.getData();
-					data[1] += bottleneck;
-					e.setData(data);
-					foundForwardEdge = true;
-				}
-			}
-			if (!foundForwardEdge) {
-				v = vertices.get(path.get(i + 1));
-				for (Iterator<Edge> iterator = flowGraph.incidentEdges(v); iterator.hasNext();) {
-					Edge e;
-					if ((e = iterator.next()).getSecondEndpoint().getName().equals(path.get(i))) {
-						Double[] data = (Double[]) e.getData();
-						data[1] -= bottleneck;
-						e.setData(data);
-					}
-				}
-			}
-		}
+	public static Double[] FFScaling(ResidualNetwork net) {
+		return FFScaling(net, new Augmenting_Path(net, false));
 	}
 
 	/**
-	 * Find one s-t path of the input residual graph, using BFS algorithm.
-	 * 
-	 * @param limitedResidualGraph A residual graph.
-	 * @return A List that contains the name of the vertices of a s-t path, starting
-	 *         with "s", end with "t"
-	 */
-	@SuppressWarnings("unchecked")
-	private static ArrayList<String> findPath(SimpleGraph residualGraph) {
-		ArrayList<String> list = new ArrayList<>();
-		HashMap<String, Vertex> vertices = getVertexMap(residualGraph);
-		if (null == vertices.get("s") || null == vertices.get("t")) {
-			return list;
-		}
-
-		Queue<Vertex> queue = new LinkedList<Vertex>();
-		HashMap<String, String> postV = new HashMap<>();
-		queue.add(vertices.get("s"));
-		postV.put("s", null);
-		while (!queue.isEmpty()) {
-			Vertex v = queue.poll();
-			for (Iterator<Edge> iterator = residualGraph.incidentEdges(v); iterator.hasNext();) {
-				Edge e = iterator.next();
-				if (e.getSecondEndpoint().getName() == "t") {
-					postV.put("t", (String) v.getName());
-					break;
-				} else {
-					if (!postV.containsKey((String) e.getSecondEndpoint().getName())) {
-						postV.put((String) e.getSecondEndpoint().getName(), (String) v.getName());
-						queue.add(e.getSecondEndpoint());
-					}
-				}
-			}
-		}
-		if (!postV.containsKey("t")) {
-			return null;
-		}
-		String currentV = "t";
-		while (postV.get(currentV) != null) {
-			list.add(currentV);
-			currentV = postV.get(currentV);
-		}
-		list.add("s");
-		Collections.reverse(list);
-		return list;
-	}
-
-	/**
-	 * Compute the value of the bottleneck of a s-t path.
+	 * Compute the maximum flow value of a network flow graph.
 	 * 
-	 * @param residualGraph A residual graph
-	 * @param path          A List that contains the name of the vetices of a s-t
-	 *                      path, starting with "s", end with "t"
-	 * @return The value of the bottleneck of the path
+	 * @param net  The residual network to compute maximum flow, its flow is
+	 *             reset first
+	 * @param path The path search of this run
+	 * @return The running time in ms and the maximum flow value of net
 	 */
-	@SuppressWarnings("unchecked")
-	private static Double getBottleneck(SimpleGraph residualGraph, List<String> path) {
-		HashMap<String, Vertex> residualGraphVertices = getVertexMap(residualGraph);
-		Double bottleneck = Double.MAX_VALUE;
-		for (int i = 0; i < path.size() - 1; i++) {
-			Vertex v = residualGraphVertices.get(path.get(i));
-			for (Iterator<Edge> iterator = residualGraph.incidentEdges(v); iterator.hasNext();) {
-				Edge e;
-				if ((e = iterator.next()).getSecondEndpoint().getName().equals(path.get(i + 1))) {
-					bottleneck = bottleneck > ((Double[]) e.getData())[0] ? ((Double[]) e.getData())[0] : bottleneck;
-				}
-			}
-		}
-		return bottleneck;
-	}
+	private static Double[] FFScaling(ResidualNetwork net, Augmenting_Path path) {
+		Long startTime = System.currentTimeMillis();
+		long maxFlow = 0;
+		net.resetFlow();
+		// Initial delta, the largest power of 2 not above the largest capacity
+		long delta = 1;
+		long maxCap = 0;
 
-	/**
-	 * This method generates a limited residual graph from a residual graph, with
-	 * all edges' residual capcity larger than delta
-	 * 
-	 * @param residualGraph A residual graph
-	 * @param delta
-	 * @return A corresponding limited residual graph that all edges' residual
-	 *         capcity larger than delta
-	 */
-	@SuppressWarnings("unchecked")
-	private static SimpleGraph toLimitedResidualGraph(SimpleGraph residualGraph, Integer delta) {
-		SimpleGraph limitedResidualGraph = new SimpleGraph();
-		for (Iterator<Vertex> iterator = residualGraph.vertices(); iterator.hasNext();) {
-			Vertex v = iterator.next();
-			limitedResidualGraph.insertVertex(v.getData(), v.getName());
+		for (int a = 0; a < net.numArcs; a++) {
+			maxCap = Math.max(maxCap, net.capacity[a]);
 		}
-		HashMap<String, Vertex> vertices = getVertexMap(limitedResidualGraph);
-		for (Iterator<Edge> iterator = residualGraph.edges(); iterator.hasNext();) {
-			Edge e = iterator.next();
-			Double[] data = (Double[]) e.getData();
-			if (data[0] >= delta) {
-				limitedResidualGraph.insertEdge(vertices.get(e.getFirstEndpoint().getName()),
-						vertices.get(e.getSecondEndpoint().getName()), new Double[] { data[0], 0.0 }, e.getName());
-			}
+		while (2 * delta <= maxCap) {
+			delta *= 2;
 		}
-		return limitedResidualGraph;
-	}
 
-	/**
-	 * This method generates a residual graph from a network flow graph.
-	 * 
-	 * @param flowGraph A network flow graph
-	 * @return A corresponding residual graph
-	 */
-	@SuppressWarnings("unchecked")
-	private static SimpleGraph toResidualGraph(SimpleGraph flowGraph) {
-		SimpleGraph residualGraph = new SimpleGraph();
-		for (Iterator<Vertex> iterator = flowGraph.vertices(); iterator.hasNext();) {
-			Vertex v = iterator.next();
-			residualGraph.insertVertex(v.getData(), v.getName());
-		}
-		HashMap<String, Vertex> vertices = getVertexMap(residualGraph);
-		for (Iterator<Edge> iterator = flowGraph.edges(); iterator.hasNext();) {
-			Edge e = iterator.next();
-			Double[] data = (Double[]) e.getData();
-			if (data[1] == 0) {
-				residualGraph.insertEdge(vertices.get(e.getFirstEndpoint().getName()),
-						vertices.get(e.getSecondEndpoint().getName()), new Double[] { data[0], 0.0 }, e.getName());
-			} else if (data[0] == data[1]) {
-				residualGraph.insertEdge(vertices.get(e.getSecondEndpoint().getName()),
-						vertices.get(e.getFirstEndpoint().getName()), new Double[] { data[1], 0.0 }, e.getName());
-			} else {
-				residualGraph.insertEdge(vertices.get(e.getFirstEndpoint().getName()),
-						vertices.get(e.getSecondEndpoint().getName()), new Double[] { data[0] - data[1], 0.0 },
-						e.getName());
-				residualGraph.insertEdge(vertices.get(e.getSecondEndpoint().getName()),
-						vertices.get(e.getFirstEndpoint().getName()), new Double[] { data[1], 0.0 }, e.getName());
+		while (delta >= 1) {
+			while (path.find(delta)) {
+				maxFlow += path.augment();
 			}
+			delta /= 2;
 		}
-		return residualGraph;
-	}
-
-	/**
-	 * Generate a network flow graph that having the same vertices and edges of the
-	 * input graph.
-	 * 
-	 * @param graph A simple graph
-	 * @return A corresponding network flow graph
-	 */
-	@SuppressWarnings("unchecked")
-	private static SimpleGraph toFlowGraph(SimpleGraph graph) {
-		SimpleGraph flowGraph = new SimpleGraph();
-		for (Iterator<Vertex> iterator = graph.vertices(); iterator.hasNext();) {
-			Vertex v = iterator.next();
-			flowGraph.insertVertex(v.getData(), v.getName());
-		}
-		HashMap<String, Vertex> vertices = getVertexMap(flowGraph);
-		for (Iterator<Edge> iterator = graph.edges(); iterator.hasNext();) {
-			Edge e = iterator.next();
-			Double data = (Double) e.getData();
-			flowGraph.insertEdge(vertices.get(e.getFirstEndpoint().getName()),
-					vertices.get(e.getSecondEndpoint().getName()), new Double[] { data, 0.0 }, e.getName());
-		}
-		return flowGraph;
-	}
-
-	/**
-	 * This method returns a HashMap of (String, Vertex) pairs.
-	 * 
-	 * @param flowGraph A network flow graph
-	 * @return A HashMap of (String, Vertex) pairs
-	 */
-	@SuppressWarnings("unchecked")
-	private static HashMap<String, Vertex> getVertexMap(SimpleGraph flowGraph) {
-		HashMap<String, Vertex> map = new HashMap<>();
-		for (Iterator<Vertex> iterator = flowGraph.vertices(); iterator.hasNext();) {
-			Vertex v = iterator.next();
-			map.put((String) v.getName(), v);
-		}
-		return map;
+		//System.out.println("time:" + (System.currentTimeMillis() - startTime) + "ms");
+		return new Double[] { (double) (System.currentTimeMillis() - startTime), net.toValue(maxFlow) };
 	}
-}
\ No newline at end of file
+}
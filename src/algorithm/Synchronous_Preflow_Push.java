@@ -0,0 +1,405 @@
+//
+// Round-based parallel Preflow-Push on a ForkJoinPool. Every round pushes from
+// all active vertices at once, then applies the excess deltas and the new
+// heights, so the operation counts do not depend on scheduling or the number
+// of threads
+//
+
+package algorithm;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+import util.*;
+
+
+public class Synchronous_Preflow_Push {
+
+	// Residual network the algorithm runs on
+	private ResidualNetwork net;
+	private int n;
+	private ForkJoinPool pool;
+	private int threads;
+
+	// Height, excess and current arc of every vertex. Heights and excesses only
+	// change between the parallel steps of a round
+	private int[] height;
+	private int[] newHeight;
+	private long[] excess;
+	private int[] current;
+
+	// Excess pushed into every vertex during the current round
+	private AtomicLongArray incoming;
+
+	// Active vertices of the current round in increasing order, and the
+	// vertices which received excess during it
+	private int[] active;
+	private int activeSize;
+	private int[] received;
+	private AtomicInteger receivedSize = new AtomicInteger();
+	private boolean[] listed;
+
+	// Global relabeling works level by level on these
+	private AtomicIntegerArray label;
+	private int[] frontier;
+	private int[] nextFrontier;
+	private AtomicInteger nextFrontierSize = new AtomicInteger();
+
+	// Global relabeling runs once the relabel work since the last one
+	// exceeds globalRelabelFrequency * (n + m), 0 turns it off
+	private double globalRelabelFrequency = 1.0;
+	private LongAdder relabelWork = new LongAdder();
+
+	// Operation counts of the last run
+	private LongAdder pushes = new LongAdder();
+	private LongAdder relabels = new LongAdder();
+	private long rounds;
+	private long globalRelabels;
+
+	//
+	// Test interface of this class
+	//
+	public static void SPP(SimpleGraph graph, Hashtable table, int threads) {
+		SPP(new ResidualNetwork(graph), threads);
+	}
+
+	public static void SPP(ResidualNetwork net, int threads) {
+		// Start recording running time in ms
+		long start = System.currentTimeMillis();
+
+		Synchronous_Preflow_Push spp = new Synchronous_Preflow_Push(net, threads);
+		Double maxFlow = spp.run();
+		spp.shutdown();
+
+		// End recording running time in ms
+		long end = System.currentTimeMillis();
+
+		System.out.println("Synchronous Preflow Push (" + threads + " threads): \nruntime is " + (end - start)
+				+ "ms, maximum flow is " + maxFlow + "\nrounds " + spp.rounds + ", pushes " + spp.getPushes()
+				+ ", relabels " + spp.getRelabels() + ", global relabels " + spp.globalRelabels + "\n");
+	}
+
+	public Synchronous_Preflow_Push(ResidualNetwork net, int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("At least one thread is needed");
+		}
+
+		this.net = net;
+		this.n = net.numVertices;
+		this.threads = threads;
+		this.pool = new ForkJoinPool(threads);
+
+		this.height = new int[n];
+		this.newHeight = new int[n];
+		this.excess = new long[n];
+		this.current = new int[n];
+		this.incoming = new AtomicLongArray(n);
+		this.active = new int[n];
+		this.received = new int[n];
+		this.listed = new boolean[n];
+		this.label = new AtomicIntegerArray(n);
+		this.frontier = new int[n];
+		this.nextFrontier = new int[n];
+	}
+
+	//
+	// Set how much relabel work, relative to the size of the network, is done between
+	// two global relabelings. 0 disables global relabeling
+	//
+	public void setGlobalRelabelFrequency(double frequency) {
+		this.globalRelabelFrequency = frequency;
+	}
+
+	//
+	// Stop the threads of the pool once the object is no longer used
+	//
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	public long getRounds() {
+		return rounds;
+	}
+
+	public long getPushes() {
+		return pushes.sum();
+	}
+
+	public long getRelabels() {
+		return relabels.sum();
+	}
+
+	public long getGlobalRelabels() {
+		return globalRelabels;
+	}
+
+	//
+	// Compute a maximum flow of the network, return its value
+	//
+	public double run() {
+		int s = net.source;
+		int t = net.sink;
+
+		if (s < 0 || t < 0) {
+			return 0.0;
+		}
+
+		// Initialize height, excess and current arc for all the vertices
+		net.resetFlow();
+		Arrays.fill(height, 0);
+		Arrays.fill(excess, 0);
+		pushes.reset();
+		relabels.reset();
+		relabelWork.reset();
+		rounds = 0;
+		globalRelabels = 0;
+		for (int v=0; v<n; v++) {
+			current[v] = net.first[v];
+		}
+		height[s] = n;
+
+		// Saturate all the arcs out of s
+		for (int a=net.first[s]; a<net.first[s+1]; a++) {
+			long delta = net.residual(a);
+
+			if (delta > 0) {
+				net.push(a, delta);
+				excess[s] -= delta;
+				excess[net.head[a]] += delta;
+			}
+		}
+
+		activeSize = 0;
+		for (int v=0; v<n; v++) {
+			if (isActive(v)) {
+				active[activeSize++] = v;
+			}
+		}
+
+		// Start from exact distance labels
+		double threshold = globalRelabelFrequency * (n + net.numArcs / 2);
+		if (globalRelabelFrequency > 0.0) {
+			globalRelabel();
+		}
+
+		while (activeSize > 0) {
+			round();
+
+			if (globalRelabelFrequency > 0.0 && relabelWork.sum() > threshold) {
+				globalRelabel();
+			}
+		}
+
+		return net.toValue(excess[t]);
+	}
+
+	//
+	// One synchronous round: push from every active vertex, relabel those with excess
+	// left, then apply the received excess and collect the next active vertices
+	//
+	private void round() {
+		receivedSize.set(0);
+
+		// Pushes only read heights and touch the arcs of their own vertex. An arc
+		// and its mate are never admissible at once, so no arc is pushed from both ends
+		parallelFor(activeSize, i -> discharge(active[i]));
+
+		// New heights only depend on the heights of the last round
+		parallelFor(activeSize, i -> {
+			int v = active[i];
+			newHeight[v] = excess[v] > 0 ? relabel(v) : height[v];
+		});
+		parallelFor(activeSize, i -> height[active[i]] = newHeight[active[i]]);
+
+		// Apply the excess deltas, the order of the additions does not matter
+		int size = receivedSize.get();
+		parallelFor(size, i -> {
+			int w = received[i];
+			excess[w] += incoming.getAndSet(w, 0);
+		});
+
+		// Next active vertices in increasing order, so every round sees the same list
+		int next = 0;
+		for (int i=0; i<activeSize; i++) {
+			int v = active[i];
+			if (isActive(v)) {
+				listed[v] = true;
+				active[next++] = v;
+			}
+		}
+		for (int i=0; i<size; i++) {
+			int w = received[i];
+			if (!listed[w] && isActive(w)) {
+				listed[w] = true;
+				active[next++] = w;
+			}
+		}
+		activeSize = next;
+		Arrays.sort(active, 0, activeSize);
+		for (int i=0; i<activeSize; i++) {
+			listed[active[i]] = false;
+		}
+
+		rounds++;
+	}
+
+	//
+	// Push the excess v had at the start of the round along its admissible arcs
+	//
+	private void discharge(int v) {
+		int end = net.first[v+1];
+		long e = excess[v];
+
+		while (e > 0 && current[v] < end) {
+			int a = current[v];
+			int w = net.head[a];
+
+			// The height test comes first, the flow of an arc which is not
+			// admissible may be changed by the vertex at its other end
+			if (height[v] == height[w] + 1 && net.residual(a) > 0) {
+				long r = net.residual(a);
+				long delta = Math.min(e, r);
+
+				net.push(a, delta);
+				e -= delta;
+				if (incoming.getAndAdd(w, delta) == 0) {
+					received[receivedSize.getAndIncrement()] = w;
+				}
+				pushes.increment();
+
+				// Nonsaturating push, the arc stays current
+				if (delta < r) {
+					break;
+				}
+			}
+			current[v]++;
+		}
+
+		excess[v] = e;
+	}
+
+	//
+	// Return the height v gets once it ran out of admissible arcs
+	//
+	private int relabel(int v) {
+		int minHeight = Integer.MAX_VALUE;
+
+		for (int a=net.first[v]; a<net.first[v+1]; a++) {
+			if (net.residual(a) > 0 && height[net.head[a]] < minHeight) {
+				minHeight = height[net.head[a]];
+			}
+		}
+
+		current[v] = net.first[v];
+		relabelWork.add(net.first[v+1] - net.first[v] + 12);
+		relabels.increment();
+		return Math.max(height[v], minHeight + 1);
+	}
+
+	private boolean isActive(int v) {
+		return excess[v] > 0 && height[v] < 2 * n && v != net.source && v != net.sink;
+	}
+
+	//
+	// Recompute the heights in label, level by level in parallel from t and then from s,
+	// and copy them over once both searches are done
+	//
+	private void globalRelabel() {
+		int s = net.source;
+		int t = net.sink;
+		int unlabeled = 2 * n - 1;
+
+		parallelFor(n, v -> label.set(v, unlabeled));
+		label.set(t, 0);
+		label.set(s, n);
+		reverseBreadthFirst(t);
+		reverseBreadthFirst(s);
+
+		parallelFor(n, v -> {
+			height[v] = label.get(v);
+			current[v] = net.first[v];
+		});
+
+		relabelWork.reset();
+		globalRelabels++;
+	}
+
+	//
+	// Expand the frontier of root one level per step on the pool. A vertex joins the next
+	// frontier through a compare-and-set on its label, so exactly one thread claims it, and
+	// the label is the level whichever thread that is
+	//
+	private void reverseBreadthFirst(int root) {
+		int unlabeled = 2 * n - 1;
+		int size = 1;
+
+		frontier[0] = root;
+		while (size > 0) {
+			nextFrontierSize.set(0);
+
+			final int[] level = frontier;
+			parallelFor(size, i -> {
+				int w = level[i];
+				int h = label.get(w) + 1;
+
+				for (int a=net.first[w]; a<net.first[w+1]; a++) {
+					int u = net.head[a];
+
+					if (label.get(u) == unlabeled && net.residual(net.mate[a]) > 0
+							&& label.compareAndSet(u, unlabeled, h)) {
+						nextFrontier[nextFrontierSize.getAndIncrement()] = u;
+					}
+				}
+			});
+
+			int[] swap = frontier;
+			frontier = nextFrontier;
+			nextFrontier = swap;
+			size = nextFrontierSize.get();
+		}
+	}
+
+	//
+	// Run body for every index in [0, size) on the pool
+	//
+	private void parallelFor(int size, IntConsumer body) {
+		if (size == 0) {
+			return;
+		}
+		pool.invoke(new RangeTask(0, size, Math.max(256, size / (8 * threads)), body));
+	}
+
+	//
+	// Split a range of indices in halves until the pieces are small enough
+	//
+	private static class RangeTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private int from;
+		private int to;
+		private int grain;
+		private IntConsumer body;
+
+		RangeTask(int from, int to, int grain, IntConsumer body) {
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
+			this.body = body;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= grain) {
+				for (int i=from; i<to; i++) {
+					body.accept(i);
+				}
+				return;
+			}
+
+			int middle = (from + to) >>> 1;
+			invokeAll(new RangeTask(from, middle, grain, body), new RangeTask(middle, to, grain, body));
+		}
+	}
+}
@@ -9,7 +9,7 @@ import algorithm.*;
 import util.*;
 
 //
-// Main method to start three algorithms
+// Main method to start the algorithms
 //
 
 public class tcss543 {
@@ -19,6 +19,43 @@ public class tcss543 {
 		
 		LinkedList<String> fileList = new LinkedList<String>();
 		
+		// Optional rule for picking active vertices in Preflow Push, given as
+		// fifo, highest_label, lowest_label or excess_scaling
+		Preflow_Push.Selection selection = Preflow_Push.Selection.HIGHEST_LABEL;
+		if (args.length > 0) {
+			try {
+				selection = Preflow_Push.Selection.valueOf(args[0].toUpperCase().replace('-', '_'));
+			} catch (IllegalArgumentException e) {
+				usage("Unknown selection rule: " + args[0]);
+			}
+		}
+		
+		// Optional number of threads, also runs the parallel Preflow Pushes and reads
+		// large text graphs with that many threads if given
+		int threads = 0;
+		if (args.length > 1) {
+			try {
+				threads = Integer.parseInt(args[1]);
+			} catch (NumberFormatException e) {
+				usage("Not a number of threads: " + args[1]);
+			}
+			if (threads < 0) {
+				usage("Not a number of threads: " + args[1]);
+			}
+		}
+		
+		// Optional "bidirectional", makes the Ford Fulkersons search from s and t at once
+		boolean bidirectional = false;
+		if (args.length > 2) {
+			if (!args[2].equals("bidirectional")) {
+				usage("Unknown argument: " + args[2]);
+			}
+			bidirectional = true;
+		}
+		if (args.length > 3) {
+			usage("Too many arguments");
+		}
+		
 		// Input graphs
 		Scanner scanner = new Scanner(System.in);	
 		scanner.useDelimiter("\r\n");
@@ -42,19 +79,65 @@ public class tcss543 {
 				return;
 			} 
 		
-			SimpleGraph graph = new SimpleGraph();
-			Hashtable table = GraphInput.LoadSimpleGraph(graph, filePath);
+			// Straight into the arrays of the solvers, no SimpleGraph. Every solver starts
+			// from zero flow on the same network
+			ResidualNetwork net;
+			if (filePath.endsWith(BinaryGraph.EXTENSION)) {
+				// Converted with util.BinaryGraph, nothing to parse
+				net = BinaryGraph.LoadNetwork(filePath);
+			} else {
+				net = FastGraphInput.LoadNetwork(filePath, Math.max(1, threads));
+			}
 		
 			System.out.println("\nGraph name: " + fileName);
+			if (net == null) {
+				continue;
+			}
 			
 			// Ford Fulkerson
-			new Ford_Fulkerson().FF(graph, table);
+			new Ford_Fulkerson().FF(net, bidirectional);
 			
 			// Scaling Ford Fulkerson
-			new Scaling_Ford_Fulkerson().SFF(graph, table);
+			new Scaling_Ford_Fulkerson().SFF(net, bidirectional);
+			
+			// Dinic
+			Dinic.DN(net);
+			
+			// Boykov Kolmogorov
+			Boykov_Kolmogorov.BK(net);
+			
+			// Hochbaum Pseudoflow
+			Hochbaum_Pseudoflow.HPF(net);
+			
+			// Bipartite Flow, routed by the shape of the network
+			Bipartite_Flow.BF(net);
 			
 			// Preflow Push
-			new Preflow_Push().PP(graph, table);
+			Preflow_Push.PP(net, selection);
+			
+			// Parallel Preflow Push
+			if (threads > 0) {
+				Parallel_Preflow_Push.PPP(net, threads);
+				Synchronous_Preflow_Push.SPP(net, threads);
+			}
         }
 	}
+	
+	//
+	// Print what is wrong with the arguments and how to give them, then stop
+	//
+	private static void usage(String problem) {
+		System.err.println(problem);
+		System.err.println("Usage: java tcss543 [selection [threads [bidirectional]]] < graph list");
+		System.err.println("  selection      rule for picking active vertices in Preflow Push: fifo,");
+		System.err.println("                 highest_label (the default), lowest_label or excess_scaling");
+		System.err.println("  threads        number of threads for the parallel Preflow Pushes and for");
+		System.err.println("                 reading large text graphs, 0 (the default) runs no parallel");
+		System.err.println("                 solver and reads with one thread");
+		System.err.println("  bidirectional  makes the Ford Fulkersons search from s and t at once");
+		System.err.println("The graph list on standard input names one graph file per line, relative to");
+		System.err.println("the parent directory, with \\r\\n line ends. Files ending in " + BinaryGraph.EXTENSION);
+		System.err.println("are read as binary graph files");
+		System.exit(1);
+	}
 }
@@ -0,0 +1,468 @@
+package util;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * A class that stores a flow graph in a binary file holding the arrays of
+ * its ResidualNetwork, and loads it back without any parsing.
+ *
+ * The file is little endian and starts with a header of 48 bytes:
+ *
+ *      0  magic "MFGB"
+ *      4  int   version
+ *      8  int   flags, INTEGRAL if every capacity is a whole number
+ *     12  int   number of vertices n
+ *     16  int   number of edges m
+ *     20  int   source vertex number, -1 if none
+ *     24  int   sink vertex number, -1 if none
+ *     28  int   0
+ *     32  long  scale of the capacities
+ *     40  long  number of bytes of the vertex names
+ *
+ * followed by the arrays first[n+1], head[2m], mate[2m] and edgeArc[m] of
+ * the network, capacity[2m] as longs starting at a multiple of 8, and the
+ * names: the offsets nameStart[n+1] and the UTF-8 bytes of all names.
+ * Edge k of the graph is the forward arc edgeArc[k], so the edge list of
+ * the text file can be recovered in its order, with the capacities as the
+ * network stores them (a capacity of -0 comes back as 0).
+ *
+ * Every section is mapped with FileChannel.map and copied into its array
+ * in bulk, which on a little endian machine is a plain memory copy.
+ */
+public class BinaryGraph {
+
+    /** the file name extension of binary graph files */
+    public static final String EXTENSION = ".bin";
+
+    public static final int VERSION = 1;
+
+    /** flag set if the scale is 1 */
+    public static final int INTEGRAL = 1;
+
+    private static final int MAGIC = 'M' | 'F' << 8 | 'G' << 16 | 'B' << 24;
+    private static final int HEADER_SIZE = 48;
+
+    /** the largest number of bytes mapped at once */
+    private static final int CHUNK = 1 << 30;
+
+    private FileChannel channel;
+    private String pathandfilename;
+
+    // Header
+    private int flags;
+    private int numVertices;
+    private int numEdges;
+    private int source;
+    private int sink;
+    private long scale;
+    private long nameLength;
+
+    /**
+     * Convert a graph file in the format of GraphInput into a binary
+     * graph file.
+     * @param args  the name of the text file and of the binary file
+     */
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: java util.BinaryGraph <text file> <binary file>");
+            System.exit(1);
+        }
+        if (!Convert(args[0], args[1])) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Convert a graph file in the format of GraphInput into a binary
+     * graph file.
+     * @param textfile    the name of the text file, including full path.
+     * @param binaryfile  the name of the binary file, including full path.
+     * @returns  false if a line of the text file is invalid
+     */
+    public static boolean Convert(String textfile, String binaryfile) {
+        EdgeListGraph g = FastGraphInput.LoadEdgeList(textfile);
+        if (g == null) {
+            return false;
+        }
+        Save(g, binaryfile);
+        return true;
+    }
+
+    /**
+     * Write a graph to a binary graph file.
+     * @param g  a flow graph
+     * @param pathandfilename  the name of the file, including full path.
+     * @throws IllegalArgumentException  if the capacities cannot be
+     *         represented exactly as longs
+     */
+    public static void Save(EdgeListGraph g, String pathandfilename) {
+        ResidualNetwork net = new ResidualNetwork(g);
+        int n = net.numVertices;
+        int m = net.edgeArc.length;
+
+        int[] nameStart = new int[n + 1];
+        byte[][] nameBytes = new byte[n][];
+        for (int v = 0; v < n; v++) {
+            nameBytes[v] = g.names[v].getBytes(StandardCharsets.UTF_8);
+            nameStart[v + 1] = nameStart[v] + nameBytes[v].length;
+        }
+        byte[] names = new byte[nameStart[n]];
+        for (int v = 0; v < n; v++) {
+            System.arraycopy(nameBytes[v], 0, names, nameStart[v], nameBytes[v].length);
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putInt(net.isIntegral() ? INTEGRAL : 0);
+        header.putInt(n);
+        header.putInt(m);
+        header.putInt(net.source);
+        header.putInt(net.sink);
+        header.putInt(0);
+        header.putLong(net.scale);
+        header.putLong(names.length);
+        header.flip();
+
+        try (FileChannel out = FileChannel.open(Paths.get(pathandfilename), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            out.write(header, 0);
+
+            long offset = HEADER_SIZE;
+            offset = writeInts(out, offset, net.first);
+            offset = writeInts(out, offset, net.head);
+            offset = writeInts(out, offset, net.mate);
+            offset = writeInts(out, offset, net.edgeArc);
+            offset = writeLongs(out, align(offset), net.capacity);
+            offset = writeInts(out, offset, nameStart);
+            out.write(ByteBuffer.wrap(names), offset);
+        } catch (IOException e) {
+            throw new InputLib.InputError(e.getMessage());
+        }
+    }
+
+    /**
+     * Load the residual network of a binary graph file.  The vertex names
+     * are not read.
+     * @param pathandfilename  the name of the file, including full path.
+     * @returns  the network with a flow of 0, its vertices and edges are null
+     */
+    public static ResidualNetwork LoadNetwork(String pathandfilename) {
+        BinaryGraph input = new BinaryGraph(pathandfilename);
+        try {
+            return input.readNetwork();
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * Load a binary graph file into arrays, with the edges in the order of
+     * the text file it was converted from.
+     * @param pathandfilename  the name of the file, including full path.
+     * @returns  the graph
+     */
+    public static EdgeListGraph LoadEdgeList(String pathandfilename) {
+        BinaryGraph input = new BinaryGraph(pathandfilename);
+        try {
+            ResidualNetwork net = input.readNetwork();
+            String[] names = input.readNames();
+            int m = net.edgeArc.length;
+
+            int[] tail = new int[m];
+            int[] head = new int[m];
+            double[] capacity = new double[m];
+            for (int k = 0; k < m; k++) {
+                int a = net.edgeArc[k];
+                tail[k] = net.head[net.mate[a]];
+                head[k] = net.head[a];
+                capacity[k] = net.toValue(net.capacity[a]);
+            }
+            return new EdgeListGraph(names, tail, head, capacity);
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * Load a binary graph file into a SimpleGraph.  The graph and the
+     * table are the same as those GraphInput.LoadSimpleGraph builds from
+     * the text file it was converted from.
+     * @param newgraph  a graph to add edges to. newgraph should already be initialized
+     * @param pathandfilename  the name of the file, including full path.
+     * @returns  a hash table of (String, Vertex) pairs
+     */
+    public static Hashtable LoadSimpleGraph(SimpleGraph newgraph, String pathandfilename) {
+        EdgeListGraph g = LoadEdgeList(pathandfilename);
+
+        Hashtable table = new Hashtable();
+        Vertex[] vertices = new Vertex[g.numVertices];
+        for (int v = 0; v < g.numVertices; v++) {
+            vertices[v] = newgraph.insertVertex(null, g.names[v]);
+            table.put(g.names[v], vertices[v]);
+        }
+        for (int k = 0; k < g.numEdges; k++) {
+            newgraph.insertEdge(vertices[g.tail[k]], vertices[g.head[k]], Double.valueOf(g.capacity[k]), null);
+        }
+
+        return table;
+    }
+
+    /**
+     * Open a binary graph file and check its header.
+     */
+    private BinaryGraph(String pathandfilename) {
+        this.pathandfilename = pathandfilename;
+        try {
+            channel = FileChannel.open(Paths.get(pathandfilename), StandardOpenOption.READ);
+        } catch (IOException e) {
+            throw new InputLib.InputError(e.getMessage());
+        }
+
+        try {
+            readHeader();
+        } catch (RuntimeException | Error e) {
+            close();
+            throw e;
+        }
+        System.out.println("Opened " + pathandfilename + " for input.");
+    }
+
+    private void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new InputLib.InputError(e.getMessage());
+        }
+    }
+
+    private void readHeader() {
+        long size;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            size = channel.size();
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new InputLib.InputError(e.getMessage());
+        }
+        header.flip();
+
+        if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+            throw new InputLib.InputError("Not a binary graph file: " + pathandfilename);
+        }
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new InputLib.InputError("Unsupported binary graph version " + version + ": " + pathandfilename);
+        }
+        flags = header.getInt();
+        numVertices = header.getInt();
+        numEdges = header.getInt();
+        source = header.getInt();
+        sink = header.getInt();
+        header.getInt();
+        scale = header.getLong();
+        nameLength = header.getLong();
+
+        if (numVertices < 0 || numEdges < 0 || numEdges > Integer.MAX_VALUE / 2
+                || nameLength < 0 || nameLength > Integer.MAX_VALUE
+                || source < -1 || source >= numVertices || sink < -1 || sink >= numVertices
+                || !isScale(scale) || ((flags & INTEGRAL) != 0) != (scale == 1)) {
+            throw new InputLib.InputError("Invalid binary graph header: " + pathandfilename);
+        }
+        if (size != namesOffset() + 4L * (numVertices + 1) + nameLength) {
+            throw new InputLib.InputError("Binary graph file has the wrong size: " + pathandfilename);
+        }
+    }
+
+    /** the offset of the capacities */
+    private long capacityOffset() {
+        return align(HEADER_SIZE + 4L * (numVertices + 1) + 4L * 5 * numEdges);
+    }
+
+    /** the offset of nameStart */
+    private long namesOffset() {
+        return capacityOffset() + 8L * 2 * numEdges;
+    }
+
+    private ResidualNetwork readNetwork() {
+        ResidualNetwork net = new ResidualNetwork();
+        int numArcs = 2 * numEdges;
+
+        net.numVertices = numVertices;
+        net.numArcs = numArcs;
+        net.first = new int[numVertices + 1];
+        net.head = new int[numArcs];
+        net.mate = new int[numArcs];
+        net.edgeArc = new int[numEdges];
+        net.capacity = new long[numArcs];
+        net.flow = new long[numArcs];
+        net.scale = scale;
+        net.source = source;
+        net.sink = sink;
+
+        long firstOffset = HEADER_SIZE;
+        long headOffset = readInts(firstOffset, net.first);
+        long mateOffset = readInts(headOffset, net.head);
+        long edgeArcOffset = readInts(mateOffset, net.mate);
+        readInts(edgeArcOffset, net.edgeArc);
+        readLongs(capacityOffset(), net.capacity);
+
+        // The solvers index with these without checking and rely on the
+        // invariants ResidualNetwork keeps when it lays out a network, so a
+        // file that breaks any of them must not get past here
+        if (net.first[0] != 0) {
+            throw invalid("arc offset", firstOffset);
+        }
+        if (net.first[numVertices] != numArcs) {
+            throw invalid("arc offset", firstOffset + 4L * numVertices);
+        }
+        checkInts(firstOffset, net.first, 0, numArcs, true, "arc offset");
+        checkInts(headOffset, net.head, 0, numVertices - 1, false, "arc head");
+        checkInts(mateOffset, net.mate, 0, numArcs - 1, false, "reverse arc");
+        checkInts(edgeArcOffset, net.edgeArc, 0, numArcs - 1, false, "edge arc");
+
+        // Every arc is the reverse of its reverse and leads back to its tail
+        for (int v = 0; v < numVertices; v++) {
+            for (int a = net.first[v]; a < net.first[v + 1]; a++) {
+                int b = net.mate[a];
+                if (b == a || net.mate[b] != a || net.head[b] != v) {
+                    throw invalid("reverse arc", mateOffset + 4L * a);
+                }
+            }
+        }
+
+        // Every pair of arcs is one edge, whose reverse arc has no capacity
+        boolean[] used = new boolean[numArcs];
+        for (int k = 0; k < numEdges; k++) {
+            int a = net.edgeArc[k];
+            if (used[a] || used[net.mate[a]] || net.capacity[net.mate[a]] != 0) {
+                throw invalid("edge arc", edgeArcOffset + 4L * k);
+            }
+            used[a] = true;
+            used[net.mate[a]] = true;
+        }
+
+        // Any excess is bounded by the total capacity, as in ResidualNetwork
+        long total = 0;
+        for (int a = 0; a < numArcs; a++) {
+            if (net.capacity[a] < 0 || net.capacity[a] > Long.MAX_VALUE / 4 - total) {
+                throw invalid("capacity", capacityOffset() + 8L * a);
+            }
+            total += net.capacity[a];
+        }
+        return net;
+    }
+
+    /**
+     * Return whether a scale is one ResidualNetwork can have, a power of
+     * 10 of at most 18 decimal places.
+     */
+    private static boolean isScale(long scale) {
+        long power = 1;
+        for (int places = 0; places < 18 && power < scale; places++) {
+            power *= 10;
+        }
+        return power == scale;
+    }
+
+    private String[] readNames() {
+        int[] nameStart = new int[numVertices + 1];
+        long offset = readInts(namesOffset(), nameStart);
+        checkInts(namesOffset(), nameStart, 0, (int) nameLength, true, "name offset");
+        byte[] bytes = new byte[(int) nameLength];
+        map(offset, bytes.length).get(bytes);
+
+        String[] names = new String[numVertices];
+        for (int v = 0; v < numVertices; v++) {
+            names[v] = new String(bytes, nameStart[v], nameStart[v + 1] - nameStart[v], StandardCharsets.UTF_8);
+        }
+        return names;
+    }
+
+    /**
+     * Check that the ints read from offset lie between low and high, both
+     * included, and if ascending that none is smaller than the one before.
+     * @param what  what the ints are, for the error message
+     */
+    private void checkInts(long offset, int[] array, int low, int high, boolean ascending, String what) {
+        for (int i = 0; i < array.length; i++) {
+            if (array[i] < low || array[i] > high || (ascending && i > 0 && array[i] < array[i - 1])) {
+                throw invalid(what, offset + 4L * i);
+            }
+        }
+    }
+
+    private InputLib.InputError invalid(String what, long offset) {
+        return new InputLib.InputError("Invalid " + what + " at offset " + offset
+                + " in binary graph file: " + pathandfilename);
+    }
+
+    private MappedByteBuffer map(long offset, long length) {
+        try {
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+            return buf;
+        } catch (IOException e) {
+            throw new InputLib.InputError(e.getMessage());
+        }
+    }
+
+    /**
+     * Copy the ints at offset into an array, return the offset after them.
+     */
+    private long readInts(long offset, int[] array) {
+        for (int i = 0; i < array.length; ) {
+            int count = Math.min(array.length - i, CHUNK / 4);
+            map(offset, 4L * count).asIntBuffer().get(array, i, count);
+            offset += 4L * count;
+            i += count;
+        }
+        return offset;
+    }
+
+    private long readLongs(long offset, long[] array) {
+        for (int i = 0; i < array.length; ) {
+            int count = Math.min(array.length - i, CHUNK / 8);
+            map(offset, 8L * count).asLongBuffer().get(array, i, count);
+            offset += 8L * count;
+            i += count;
+        }
+        return offset;
+    }
+
+    private static long writeInts(FileChannel out, long offset, int[] array) throws IOException {
+        for (int i = 0; i < array.length; ) {
+            int count = Math.min(array.length - i, CHUNK / 4);
+            MappedByteBuffer buf = out.map(FileChannel.MapMode.READ_WRITE, offset, 4L * count);
+            buf.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().put(array, i, count);
+            offset += 4L * count;
+            i += count;
+        }
+        return offset;
+    }
+
+    private static long writeLongs(FileChannel out, long offset, long[] array) throws IOException {
+        for (int i = 0; i < array.length; ) {
+            int count = Math.min(array.length - i, CHUNK / 8);
+            MappedByteBuffer buf = out.map(FileChannel.MapMode.READ_WRITE, offset, 8L * count);
+            buf.order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().put(array, i, count);
+            offset += 8L * count;
+            i += count;
+        }
+        return offset;
+    }
+
+    /** round an offset up to a multiple of 8 */
+    private static long align(long offset) {
+        return (offset + 7) & ~7L;
+    }
+}
@@ -27,7 +27,7 @@ public class Edge {
     
     private Object data;  // an object associated with this edge
     private Object name;  // a name associated with this edge
-    private Double flow;
+    private double flow;
     
     /**
      * Constructor that allows data and a name to be associated
@@ -85,11 +85,25 @@ public class Edge {
         return this.name;
     }
     
+    /**
+     * Set the flow on this edge.  The excess of both endpoints changes by
+     * the difference to the old flow, so it never has to be recomputed.
+     * @param flow  the new flow of this edge
+     */
     public void setFlow(Double flow) {
-        this.flow = flow;
+        double delta = flow.doubleValue() - this.flow;
+        
+        this.flow = flow.doubleValue();
+        v1.addExcess(-delta);
+        v2.addExcess(delta);
     }
     
     public Double getFlow() {
         return this.flow;
     }
+    
+    // Unboxed flow of this edge
+    public double flowValue() {
+        return this.flow;
+    }
 }
@@ -0,0 +1,61 @@
+package util;
+
+/**
+ * Class that represents a flow graph as plain arrays, without Vertex and
+ * Edge objects.
+ *
+ * Vertices are numbered 0 .. numVertices-1 in the order their names first
+ * appear in the input.  Edge k leads from tail[k] to head[k] and has
+ * capacity capacity[k], edges are numbered in input order.
+ */
+public class EdgeListGraph {
+
+    public int numVertices;
+    public int numEdges;
+
+    /** the name of every vertex */
+    public String[] names;
+
+    public int[] tail;
+    public int[] head;
+    public double[] capacity;
+
+    /** the vertex numbers of the source and the sink, -1 if the graph has none */
+    public int source;
+    public int sink;
+
+    /**
+     * Build a graph from its arrays, which are used as they are.  The
+     * source is the vertex named "s" and the sink the one named "t".
+     * @param names     the name of every vertex
+     * @param tail      the first endpoint of every edge
+     * @param head      the second endpoint of every edge
+     * @param capacity  the capacity of every edge
+     */
+    public EdgeListGraph(String[] names, int[] tail, int[] head, double[] capacity) {
+        this.numVertices = names.length;
+        this.numEdges = tail.length;
+        this.names = names;
+        this.tail = tail;
+        this.head = head;
+        this.capacity = capacity;
+        setTerminals("s", "t");
+    }
+
+    /**
+     * Choose the source and the sink by name.
+     * @param sourceName  the name of the source
+     * @param sinkName    the name of the sink
+     */
+    public void setTerminals(String sourceName, String sinkName) {
+        source = -1;
+        sink = -1;
+        for (int v = 0; v < numVertices; v++) {
+            if (names[v].equals(sourceName)) {
+                source = v;
+            } else if (names[v].equals(sinkName)) {
+                sink = v;
+            }
+        }
+    }
+}
@@ -0,0 +1,538 @@
+package util;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * A class that reads a graph in the format of GraphInput, faster.
+ *
+ * The file is memory-mapped and scanned byte by byte.  Names are looked
+ * up in an open addressing table over their bytes, so a String is made
+ * only once per vertex, and capacities are parsed from the bytes without
+ * making a String for the usual plain decimals.  Vertices get dense
+ * numbers in order of first appearance, the order in which GraphInput
+ * inserts them.
+ *
+ * Large files can be read by several threads.  The file is split into
+ * chunks at line ends and every chunk is read into names and edges of
+ * its own, numbered in order of first appearance within the chunk.  The
+ * names of the chunks are then looked up in chunk order in one table,
+ * which numbers the vertices exactly as reading the whole file in one
+ * piece does, and the edges of every chunk are renumbered and copied
+ * into place in parallel.  The graph is the same for any number of
+ * threads.
+ */
+public class FastGraphInput {
+
+    /** exact powers of 10 as doubles */
+    private static final double[] POWERS_OF_10 = new double[23];
+    static {
+        POWERS_OF_10[0] = 1.0;
+        for (int i = 1; i < POWERS_OF_10.length; i++) {
+            POWERS_OF_10[i] = POWERS_OF_10[i - 1] * 10.0;
+        }
+    }
+
+    /** the smallest chunk worth a thread of its own */
+    private static final int MIN_CHUNK = 1 << 20;
+
+    // Bytes read, from position start up to end.  Only absolute gets are
+    // used, so the chunks share one buffer
+    private MappedByteBuffer buf;
+    private int start;
+    private int end;
+    private int lineNumber;
+
+    // Names: the bytes of name v are nameBytes[nameStart[v] .. nameStart[v+1]-1],
+    // first found in the file at namePosition[v], and slots[] holds v+1 at the
+    // position of its hash, 0 for a free slot
+    private byte[] nameBytes = new byte[1024];
+    private int[] nameStart = new int[65];
+    private int[] nameHash = new int[64];
+    private int[] namePosition = new int[64];
+    private int[] slots = new int[128];
+    private int numVertices;
+
+    // Edges
+    private NetworkBuilder edges;
+
+    /**
+     * Load graph data from a text file in the format of GraphInput into
+     * a SimpleGraph.  The graph and the table are the same as those
+     * GraphInput.LoadSimpleGraph builds.
+     * @param newgraph  a graph to add edges to. newgraph should already be initialized
+     * @param pathandfilename  the name of the file, including full path.
+     * @returns  a hash table of (String, Vertex) pairs, null if a line is invalid
+     */
+    public static Hashtable LoadSimpleGraph(SimpleGraph newgraph, String pathandfilename) {
+        return LoadSimpleGraph(newgraph, pathandfilename, 1);
+    }
+
+    /**
+     * Load graph data from a text file in the format of GraphInput into
+     * a SimpleGraph, reading the file with several threads.
+     * @param newgraph  a graph to add edges to. newgraph should already be initialized
+     * @param pathandfilename  the name of the file, including full path.
+     * @param threads  the number of threads to read the file with
+     * @returns  a hash table of (String, Vertex) pairs, null if a line is invalid
+     */
+    public static Hashtable LoadSimpleGraph(SimpleGraph newgraph, String pathandfilename, int threads) {
+        EdgeListGraph g = LoadEdgeList(pathandfilename, threads);
+        if (g == null) {
+            return null;
+        }
+
+        Hashtable table = new Hashtable();
+        Vertex[] vertices = new Vertex[g.numVertices];
+        for (int v = 0; v < g.numVertices; v++) {
+            vertices[v] = newgraph.insertVertex(null, g.names[v]);
+            table.put(g.names[v], vertices[v]);
+        }
+        for (int k = 0; k < g.numEdges; k++) {
+            newgraph.insertEdge(vertices[g.tail[k]], vertices[g.head[k]], Double.valueOf(g.capacity[k]), null);
+        }
+
+        return table;
+    }
+
+    /**
+     * Load graph data from a text file in the format of GraphInput into
+     * arrays.
+     * @param pathandfilename  the name of the file, including full path.
+     * @returns  the graph, null if a line is invalid
+     */
+    public static EdgeListGraph LoadEdgeList(String pathandfilename) {
+        return LoadEdgeList(pathandfilename, 1);
+    }
+
+    /**
+     * Load graph data from a text file in the format of GraphInput into
+     * arrays, reading the file with several threads.  The graph is the
+     * same as for one thread.
+     * @param pathandfilename  the name of the file, including full path.
+     * @param threads  the number of threads to read the file with
+     * @returns  the graph, null if a line is invalid
+     */
+    public static EdgeListGraph LoadEdgeList(String pathandfilename, int threads) {
+        FastGraphInput input = read(pathandfilename, threads);
+        if (input == null) {
+            return null;
+        }
+
+        String[] names = new String[input.numVertices];
+        for (int v = 0; v < names.length; v++) {
+            names[v] = new String(input.nameBytes, input.nameStart[v], input.nameStart[v + 1] - input.nameStart[v]);
+        }
+        NetworkBuilder edges = input.edges;
+        int m = edges.numEdges;
+        if (edges.tail.length != m) {
+            edges.tail = Arrays.copyOf(edges.tail, m);
+            edges.head = Arrays.copyOf(edges.head, m);
+            edges.capacity = Arrays.copyOf(edges.capacity, m);
+        }
+        return new EdgeListGraph(names, edges.tail, edges.head, edges.capacity);
+    }
+
+    /**
+     * Load graph data from a text file in the format of GraphInput
+     * straight into a residual network, without Vertex and Edge objects
+     * and without Strings for the names.  The source is the vertex named
+     * "s" and the sink the one named "t".
+     * @param pathandfilename  the name of the file, including full path.
+     * @param threads  the number of threads to read the file with
+     * @returns  the network, null if a line is invalid
+     */
+    public static ResidualNetwork LoadNetwork(String pathandfilename, int threads) {
+        return LoadNetwork(pathandfilename, threads, "s", "t");
+    }
+
+    /**
+     * Load graph data from a text file in the format of GraphInput
+     * straight into a residual network with the source and the sink
+     * given by name.
+     * @param pathandfilename  the name of the file, including full path.
+     * @param threads  the number of threads to read the file with
+     * @param sourceName  the name of the source
+     * @param sinkName    the name of the sink
+     * @returns  the network, null if a line is invalid
+     */
+    public static ResidualNetwork LoadNetwork(String pathandfilename, int threads, String sourceName, String sinkName) {
+        FastGraphInput input = read(pathandfilename, threads);
+        if (input == null) {
+            return null;
+        }
+
+        input.edges.setTerminals(input.find(sourceName), input.find(sinkName));
+        return input.edges.build();
+    }
+
+    /**
+     * Map a file and read it with up to threads threads, return null if
+     * a line is invalid.
+     */
+    private static FastGraphInput read(String pathandfilename, int threads) {
+        MappedByteBuffer buf;
+        int size;
+
+        try (FileChannel channel = FileChannel.open(Paths.get(pathandfilename), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new InputLib.InputError("File is too large to be mapped: " + pathandfilename);
+            }
+            size = (int) channel.size();
+            buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } catch (IOException e) {
+            throw new InputLib.InputError(e.getMessage());
+        }
+
+        System.out.println("Opened " + pathandfilename + " for input.");
+        int chunks = Math.max(1, Math.min(threads, size / MIN_CHUNK));
+        FastGraphInput input;
+        if (chunks == 1) {
+            input = new FastGraphInput(buf, 0, size);
+            if (!input.parse()) {
+                System.err.println("Error:invalid number of tokens found on line " + input.lineNumber + "!");
+                return null;
+            }
+        } else {
+            input = parseChunks(buf, size, chunks);
+            if (input == null) {
+                return null;
+            }
+        }
+        System.out.println("Successfully loaded " + input.lineNumber + " lines. ");
+        return input;
+    }
+
+    private FastGraphInput(MappedByteBuffer buf, int start, int end) {
+        this.buf = buf;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Read the file in chunks on one thread each and merge them, return
+     * null if a line is invalid.
+     */
+    private static FastGraphInput parseChunks(MappedByteBuffer buf, int size, int chunks) {
+        // Split at line ends, a chunk starts right after \n, \r or \r\n
+        int[] bounds = new int[chunks + 1];
+        bounds[chunks] = size;
+        for (int c = 1; c < chunks; c++) {
+            int i = (int) Math.max(bounds[c - 1], (long) size * c / chunks);
+            while (i < size && buf.get(i) != '\n' && buf.get(i) != '\r') {
+                i++;
+            }
+            if (i < size) {
+                i += buf.get(i) == '\r' && i + 1 < size && buf.get(i + 1) == '\n' ? 2 : 1;
+            }
+            bounds[c] = i;
+        }
+
+        FastGraphInput[] parts = new FastGraphInput[chunks];
+        boolean[] valid = new boolean[chunks];
+        for (int c = 0; c < chunks; c++) {
+            parts[c] = new FastGraphInput(buf, bounds[c], bounds[c + 1]);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(chunks);
+        try {
+            ArrayList<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+            for (int c = 0; c < chunks; c++) {
+                final int chunk = c;
+                tasks.add(new Callable<Object>() {
+                    public Object call() {
+                        valid[chunk] = parts[chunk].parse();
+                        return null;
+                    }
+                });
+            }
+            runAll(pool, tasks);
+
+            // The first invalid line is in the first invalid chunk, after all lines before it
+            FastGraphInput merged = new FastGraphInput(buf, 0, 0);
+            for (int c = 0; c < chunks; c++) {
+                merged.lineNumber += parts[c].lineNumber;
+                if (!valid[c]) {
+                    System.err.println("Error:invalid number of tokens found on line " + merged.lineNumber + "!");
+                    return null;
+                }
+            }
+
+            // Number the names of every chunk in the order they appear in the file
+            int[][] number = new int[chunks][];
+            int[] offset = new int[chunks + 1];
+            for (int c = 0; c < chunks; c++) {
+                FastGraphInput part = parts[c];
+                number[c] = new int[part.numVertices];
+                for (int w = 0; w < part.numVertices; w++) {
+                    int position = part.namePosition[w];
+                    number[c][w] = merged.vertex(position, position + part.nameStart[w + 1] - part.nameStart[w]);
+                }
+                offset[c + 1] = offset[c] + part.edges.numEdges;
+            }
+
+            NetworkBuilder edges = new NetworkBuilder(offset[chunks]);
+            edges.numVertices = merged.numVertices;
+            edges.numEdges = offset[chunks];
+            merged.edges = edges;
+            tasks.clear();
+            for (int c = 0; c < chunks; c++) {
+                final int chunk = c;
+                tasks.add(new Callable<Object>() {
+                    public Object call() {
+                        NetworkBuilder part = parts[chunk].edges;
+                        int[] map = number[chunk];
+                        int k = offset[chunk];
+                        for (int j = 0; j < part.numEdges; j++, k++) {
+                            edges.tail[k] = map[part.tail[j]];
+                            edges.head[k] = map[part.head[j]];
+                        }
+                        System.arraycopy(part.capacity, 0, edges.capacity, offset[chunk], part.numEdges);
+                        return null;
+                    }
+                });
+            }
+            runAll(pool, tasks);
+            return merged;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void runAll(ForkJoinPool pool, ArrayList<Callable<Object>> tasks) {
+        for (Future<Object> f : pool.invokeAll(tasks)) {
+            try {
+                f.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while loading the graph", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IllegalStateException("Loading the graph failed", cause);
+            }
+        }
+    }
+
+    /**
+     * Read every line from start to end.  Lines end at \n, \r or \r\n
+     * like for BufferedReader.readLine, and tokens are separated by the
+     * white space of StringTokenizer.  Return false at the first line that
+     * does not have 3 tokens.
+     */
+    private boolean parse() {
+        int[] tokenStart = new int[3];
+        int[] tokenEnd = new int[3];
+        edges = new NetworkBuilder((end - start) / 16);
+
+        int i = start;
+        while (i < end) {
+            int tokens = 0;
+            byte b = 0;
+
+            lineNumber++;
+            while (i < end) {
+                b = buf.get(i);
+                if (b == '\n' || b == '\r') {
+                    break;
+                }
+                if (isSpace(b)) {
+                    i++;
+                    continue;
+                }
+
+                int from = i;
+                while (i < end) {
+                    b = buf.get(i);
+                    if (isSpace(b) || b == '\n' || b == '\r') {
+                        break;
+                    }
+                    i++;
+                }
+                if (tokens < 3) {
+                    tokenStart[tokens] = from;
+                    tokenEnd[tokens] = i;
+                }
+                tokens++;
+            }
+
+            // Skip the line end
+            if (i < end) {
+                i++;
+                if (b == '\r' && i < end && buf.get(i) == '\n') {
+                    i++;
+                }
+            }
+
+            if (tokens != 3) {
+                return false;
+            }
+            edges.addEdge(vertex(tokenStart[0], tokenEnd[0]), vertex(tokenStart[1], tokenEnd[1]),
+                    parseDouble(tokenStart[2], tokenEnd[2]));
+        }
+
+        return true;
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\f';
+    }
+
+    /**
+     * Return the number of the vertex named by the bytes from start to
+     * end, adding a new vertex for a new name.
+     */
+    private int vertex(int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + buf.get(i);
+        }
+
+        int mask = slots.length - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int v = slots[slot] - 1;
+            if (v < 0) {
+                slots[slot] = addVertex(start, end, hash) + 1;
+                if (2 * numVertices > slots.length) {
+                    rehash();
+                }
+                return numVertices - 1;
+            }
+            if (nameHash[v] == hash && sameName(v, start, end)) {
+                return v;
+            }
+        }
+    }
+
+    /**
+     * Return the number of the vertex with a given name, -1 if there is
+     * none.
+     */
+    private int find(String name) {
+        byte[] bytes = name.getBytes();
+        int hash = 0;
+        for (byte b : bytes) {
+            hash = 31 * hash + b;
+        }
+
+        int mask = slots.length - 1;
+        for (int slot = mix(hash) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int v = slots[slot] - 1;
+            if (nameHash[v] != hash || nameStart[v + 1] - nameStart[v] != bytes.length) {
+                continue;
+            }
+            int i = 0;
+            while (i < bytes.length && nameBytes[nameStart[v] + i] == bytes[i]) {
+                i++;
+            }
+            if (i == bytes.length) {
+                return v;
+            }
+        }
+        return -1;
+    }
+
+    private boolean sameName(int v, int start, int end) {
+        int offset = nameStart[v];
+        if (nameStart[v + 1] - offset != end - start) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (nameBytes[offset++] != buf.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int addVertex(int start, int end, int hash) {
+        int v = numVertices++;
+        if (v == nameHash.length) {
+            nameHash = Arrays.copyOf(nameHash, 2 * v);
+            namePosition = Arrays.copyOf(namePosition, 2 * v);
+            nameStart = Arrays.copyOf(nameStart, 2 * v + 1);
+        }
+
+        int offset = nameStart[v];
+        int length = end - start;
+        if (offset + length > nameBytes.length) {
+            nameBytes = Arrays.copyOf(nameBytes, Math.max(2 * nameBytes.length, offset + length));
+        }
+        for (int i = start; i < end; i++) {
+            nameBytes[offset++] = buf.get(i);
+        }
+        nameStart[v + 1] = offset;
+        nameHash[v] = hash;
+        namePosition[v] = start;
+        return v;
+    }
+
+    private void rehash() {
+        slots = new int[2 * slots.length];
+        int mask = slots.length - 1;
+        for (int v = 0; v < numVertices; v++) {
+            int slot = mix(nameHash[v]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = v + 1;
+        }
+    }
+
+    /** spread the bits of a hash, names like "v123" differ in few bits */
+    private static int mix(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Parse the bytes from start to end as a double.  Plain decimals with
+     * up to 15 digits are computed directly and give the same value as
+     * Double.parseDouble, anything else goes through it.
+     */
+    private double parseDouble(int start, int end) {
+        int i = start;
+        boolean negative = false;
+        byte b = buf.get(i);
+        if (b == '-' || b == '+') {
+            negative = b == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fraction = -1;
+        for (; i < end; i++) {
+            b = buf.get(i);
+            if (b >= '0' && b <= '9') {
+                mantissa = 10 * mantissa + (b - '0');
+                digits++;
+                if (fraction >= 0) {
+                    fraction++;
+                }
+            } else if (b == '.' && fraction < 0) {
+                fraction = 0;
+            } else {
+                break;
+            }
+        }
+
+        if (i < end || digits == 0 || digits > 15) {
+            byte[] token = new byte[end - start];
+            for (int j = 0; j < token.length; j++) {
+                token[j] = buf.get(start + j);
+            }
+            return Double.parseDouble(new String(token));
+        }
+
+        // Both are exact doubles, so the quotient is correctly rounded
+        double value = fraction > 0 ? mantissa / POWERS_OF_10[fraction] : (double) mantissa;
+        return negative ? -value : value;
+    }
+}
@@ -0,0 +1,118 @@
+package util;
+
+import java.util.*;
+
+/**
+ * Class that builds a ResidualNetwork from a stream of edges, without
+ * Vertex and Edge objects.
+ *
+ * Vertices are numbers 0 .. numVertices-1.  Edges are appended to
+ * growable int and double buffers, two ints and a double per edge, and
+ * build() lays them out in compressed sparse row form with a counting
+ * sort: one pass counts the arcs of every vertex, a prefix sum turns the
+ * counts into offsets, and a second pass places every arc.  The network
+ * keeps the order of the edges, edge k is the forward arc edgeArc[k].
+ */
+public class NetworkBuilder {
+
+    int numVertices;
+    int numEdges;
+
+    // Edge k leads from tail[k] to head[k], only the first numEdges entries are used
+    int[] tail;
+    int[] head;
+    double[] capacity;
+
+    private int source;
+    private int sink;
+
+    public NetworkBuilder() {
+        this(16);
+    }
+
+    /**
+     * Make a builder with room for a number of edges, it grows when more
+     * are added.
+     * @param expectedEdges  the number of edges expected
+     */
+    public NetworkBuilder(int expectedEdges) {
+        int length = Math.max(16, expectedEdges);
+        this.tail = new int[length];
+        this.head = new int[length];
+        this.capacity = new double[length];
+        this.source = -1;
+        this.sink = -1;
+    }
+
+    /**
+     * Add a vertex without edges.
+     * @return  the number of the new vertex
+     */
+    public int addVertex() {
+        return numVertices++;
+    }
+
+    /**
+     * Add an edge.  Vertices up to the larger endpoint are added if they
+     * are not there yet.
+     * @param v  the tail of the edge
+     * @param w  the head of the edge
+     * @param c  the capacity of the edge
+     */
+    public void addEdge(int v, int w, double c) {
+        if (v < 0 || w < 0) {
+            throw new IllegalArgumentException("Vertex numbers must not be negative");
+        }
+        if (numEdges == tail.length) {
+            int length = 2 * numEdges;
+            tail = Arrays.copyOf(tail, length);
+            head = Arrays.copyOf(head, length);
+            capacity = Arrays.copyOf(capacity, length);
+        }
+        tail[numEdges] = v;
+        head[numEdges] = w;
+        capacity[numEdges] = c;
+        numEdges++;
+        numVertices = Math.max(numVertices, Math.max(v, w) + 1);
+    }
+
+    /**
+     * Set the source and the sink, -1 for none.
+     * @param source  the number of the source
+     * @param sink    the number of the sink
+     */
+    public void setTerminals(int source, int sink) {
+        this.source = source;
+        this.sink = sink;
+    }
+
+    public int numVertices() {
+        return numVertices;
+    }
+
+    public int numEdges() {
+        return numEdges;
+    }
+
+    /**
+     * Build the residual network of the edges added so far.  The flow on
+     * every arc starts at 0, and the vertices and edges of the network
+     * are null.
+     * @return  the network
+     * @throws IllegalArgumentException  if the capacities cannot be
+     *         represented exactly as longs
+     */
+    public ResidualNetwork build() {
+        if (source >= numVertices || sink >= numVertices) {
+            throw new IllegalArgumentException("Source or sink is not a vertex");
+        }
+
+        ResidualNetwork net = new ResidualNetwork();
+        net.numVertices = numVertices;
+        net.numArcs = 2 * numEdges;
+        net.source = source;
+        net.sink = sink;
+        net.build(tail, head, capacity);
+        return net;
+    }
+}
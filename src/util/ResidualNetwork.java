@@ -0,0 +1,295 @@
+package util;
+
+import java.math.*;
+import java.util.*;
+
+/**
+ * Class that represents the residual network of a flow graph with
+ * primitive arrays in compressed sparse row form.
+ *
+ * Every edge (v, w) of the input graph becomes a pair of arcs: a forward
+ * arc v->w holding the edge capacity and a reverse arc w->v with capacity
+ * 0.  The flow on an arc is skew symmetric, i.e. flow[mate[a]] == -flow[a],
+ * so the residual capacity of any arc is simply capacity[a] - flow[a].
+ *
+ * Vertices are numbered 0 .. numVertices-1 in the order of the vertex list
+ * of the graph, which for a SimpleGraph are their ids.  The arcs leaving
+ * vertex v are first[v] .. first[v+1]-1.
+ *
+ * Capacities and flows are exact longs.  They are the values of the graph
+ * multiplied by scale, the smallest power of 10 that makes every capacity
+ * a whole number, so scale is 1 for integral inputs.
+ */
+public class ResidualNetwork {
+
+    public int numVertices;
+    public int numArcs;
+
+    /** offsets of the outgoing arcs of every vertex, size numVertices+1 */
+    public int[] first;
+
+    /** head vertex of every arc */
+    public int[] head;
+
+    /** the paired arc in the opposite direction of every arc */
+    public int[] mate;
+
+    public long[] capacity;
+    public long[] flow;
+
+    /** the factor between the values of the graph and the stored longs */
+    public long scale;
+
+    /** forward arc of every edge, in the order of the edge list */
+    public int[] edgeArc;
+
+    /** the vertex of the input graph for every vertex number, null for an EdgeListGraph */
+    public Vertex[] vertices;
+
+    /** the edge of the input graph for every edge number, null for an EdgeListGraph */
+    public Edge[] edges;
+
+    /** the source and sink vertex numbers, -1 if the graph has none */
+    public int source;
+    public int sink;
+
+    /**
+     * Build the residual network of a graph whose edge data are the
+     * capacities of the edges.  The flow on every arc starts at 0.
+     * @param g  a flow graph
+     * @throws IllegalArgumentException  if the capacities cannot be
+     *         represented exactly as longs
+     */
+    public ResidualNetwork(SimpleGraph g) {
+        numVertices = g.numVertices();
+        numArcs = 2 * g.numEdges();
+        vertices = new Vertex[numVertices];
+        edges = new Edge[g.numEdges()];
+        source = -1;
+        sink = -1;
+
+        // The ids of vertices inserted by the graph are their numbers, other
+        // vertices need a map
+        HashMap<Vertex, Integer> index = null;
+        int k = 0;
+        for (Iterator i = g.vertices(); i.hasNext(); k++) {
+            Vertex v = (Vertex) i.next();
+            vertices[k] = v;
+            if (v.getId() != k && index == null) {
+                index = new HashMap<Vertex, Integer>();
+                for (int j = 0; j < k; j++) {
+                    index.put(vertices[j], j);
+                }
+            }
+            if (index != null) {
+                index.put(v, k);
+            }
+            if (v.isSource()) {
+                source = k;
+            } else if (v.isSink()) {
+                sink = k;
+            }
+        }
+
+        int[] tail = new int[edges.length];
+        int[] to = new int[edges.length];
+        double[] values = new double[edges.length];
+        k = 0;
+        for (Iterator i = g.edges(); i.hasNext(); k++) {
+            Edge e = (Edge) i.next();
+            edges[k] = e;
+            if (index == null) {
+                tail[k] = e.getFirstEndpoint().getId();
+                to[k] = e.getSecondEndpoint().getId();
+            } else {
+                tail[k] = index.get(e.getFirstEndpoint());
+                to[k] = index.get(e.getSecondEndpoint());
+            }
+            values[k] = ((Double) e.getData()).doubleValue();
+        }
+
+        build(tail, to, values);
+    }
+
+    /**
+     * Build the residual network of a graph given as arrays.  The
+     * vertices keep their numbers, and vertices and edges are null as
+     * there are no Vertex and Edge objects.
+     * @param g  a flow graph
+     * @throws IllegalArgumentException  if the capacities cannot be
+     *         represented exactly as longs
+     */
+    public ResidualNetwork(EdgeListGraph g) {
+        numVertices = g.numVertices;
+        numArcs = 2 * g.numEdges;
+        source = g.source;
+        sink = g.sink;
+
+        build(g.tail, g.head, g.capacity);
+    }
+
+    /**
+     * Lay out the arcs of the edges from tail[k] to to[k] and store
+     * their capacities.  Only the first numArcs/2 entries of the arrays
+     * are used.
+     */
+    void build(int[] tail, int[] to, double[] values) {
+        int numEdges = numArcs / 2;
+
+        // Count the out degree of every vertex in the residual network
+        first = new int[numVertices + 1];
+        for (int k = 0; k < numEdges; k++) {
+            first[tail[k] + 1]++;
+            first[to[k] + 1]++;
+        }
+        for (int v = 0; v < numVertices; v++) {
+            first[v + 1] += first[v];
+        }
+
+        // Place both arcs of every edge
+        head = new int[numArcs];
+        mate = new int[numArcs];
+        capacity = new long[numArcs];
+        flow = new long[numArcs];
+        edgeArc = new int[numEdges];
+        int[] next = Arrays.copyOf(first, numVertices);
+        for (int k = 0; k < numEdges; k++) {
+            int a = next[tail[k]]++;
+            int b = next[to[k]]++;
+            head[a] = to[k];
+            head[b] = tail[k];
+            mate[a] = b;
+            mate[b] = a;
+            edgeArc[k] = a;
+        }
+
+        setCapacities(values);
+    }
+
+    /**
+     * Build a network whose arrays are filled in by the caller, e.g. when
+     * they are read from a BinaryGraph file or by a NetworkBuilder.
+     */
+    ResidualNetwork() {
+    }
+
+    /**
+     * Build a network with the same vertices, arcs and capacities as
+     * another one but a flow of its own, e.g. for solving on the same
+     * structure in several threads.  The arrays other than the flow are
+     * shared with the other network.
+     * @param other  the network to share the structure of
+     */
+    public ResidualNetwork(ResidualNetwork other) {
+        numVertices = other.numVertices;
+        numArcs = other.numArcs;
+        first = other.first;
+        head = other.head;
+        mate = other.mate;
+        capacity = other.capacity;
+        flow = new long[numArcs];
+        scale = other.scale;
+        edgeArc = other.edgeArc;
+        vertices = other.vertices;
+        edges = other.edges;
+        source = other.source;
+        sink = other.sink;
+    }
+
+    /**
+     * Find the scale of the capacities of the edges and store them.
+     * Integral inputs, i.e. all of the generated graphs, take the fast
+     * path without any BigDecimal arithmetic.
+     */
+    private void setCapacities(double[] values) {
+        int places = 0;
+        for (int k = 0; k < edgeArc.length; k++) {
+            double c = values[k];
+            if (c != Math.rint(c) || Math.abs(c) >= 1L << 53) {
+                places = Math.max(places, BigDecimal.valueOf(c).stripTrailingZeros().scale());
+            }
+        }
+        if (places > 18) {
+            throw new IllegalArgumentException("Capacities need more than 18 decimal places");
+        }
+
+        scale = 1;
+        for (int i = 0; i < places; i++) {
+            scale *= 10;
+        }
+
+        // Any excess is bounded by the total capacity, keep it well inside a long
+        BigDecimal total = BigDecimal.ZERO;
+        for (int k = 0; k < edgeArc.length; k++) {
+            double c = values[k];
+            long value;
+            if (places == 0 && Math.abs(c) < 1L << 53) {
+                value = (long) c;
+            } else {
+                value = BigDecimal.valueOf(c).movePointRight(places).longValueExact();
+            }
+            capacity[edgeArc[k]] = value;
+            total = total.add(BigDecimal.valueOf(Math.abs(value)));
+        }
+        if (total.compareTo(BigDecimal.valueOf(Long.MAX_VALUE / 4)) > 0) {
+            throw new IllegalArgumentException("Total capacity is too large to be stored exactly");
+        }
+    }
+
+    /**
+     * Return whether all capacities are whole numbers, i.e. the stored
+     * longs are the values of the graph themselves.
+     * @return  true if scale is 1
+     */
+    public boolean isIntegral() {
+        return scale == 1;
+    }
+
+    /**
+     * Convert a stored amount of flow back to the units of the graph.
+     * @param amount  a flow, excess or capacity of this network
+     * @return  the amount as a value of the graph
+     */
+    public double toValue(long amount) {
+        return scale == 1 ? (double) amount : (double) amount / scale;
+    }
+
+    /**
+     * Return the residual capacity of an arc.
+     * @param a  an arc
+     * @return  the amount of flow that can still be sent along a
+     */
+    public long residual(int a) {
+        return capacity[a] - flow[a];
+    }
+
+    /**
+     * Send flow along an arc, updating its mate accordingly.
+     * @param a      an arc
+     * @param delta  the amount of flow to send
+     */
+    public void push(int a, long delta) {
+        flow[a] += delta;
+        flow[mate[a]] -= delta;
+    }
+
+    /**
+     * Set the flow on every arc back to 0.
+     */
+    public void resetFlow() {
+        Arrays.fill(flow, 0);
+    }
+
+    /**
+     * Copy the flow of every forward arc to its edge in the input graph.
+     * Does nothing for a network built from an EdgeListGraph.
+     */
+    public void writeFlows() {
+        if (edges == null) {
+            return;
+        }
+        for (int k = 0; k < edges.length; k++) {
+            edges[k].setFlow(toValue(flow[edgeArc[k]]));
+        }
+    }
+}
@@ -19,10 +19,25 @@ public class SimpleGraph {
     public LinkedList vertexList;
     public LinkedList edgeList;
 
+    // Every vertex by its number
+    private Vertex[] vertexById;
+
+    // Names of the source and the sink, and their vertex numbers, -1 if the
+    // graph has none
+    private Object sourceName;
+    private Object sinkName;
+    private int source;
+    private int sink;
+
     // Constructor
     public SimpleGraph() {
         this.vertexList = new LinkedList();
         this.edgeList = new LinkedList();
+        this.vertexById = new Vertex[16];
+        this.sourceName = "s";
+        this.sinkName = "t";
+        this.source = -1;
+        this.sink = -1;
     }
     
     /**
@@ -70,10 +85,75 @@ public class SimpleGraph {
     public Vertex insertVertex(Object data, Object name) {
         Vertex v;
         v = new Vertex(data, name);
+
+        int id = vertexList.size();
+        if (id == vertexById.length) {
+            vertexById = Arrays.copyOf(vertexById, 2 * id);
+        }
+        vertexById[id] = v;
+        v.setId(id);
+        setTerminal(v);
+
         vertexList.addLast(v);
         return v;
     }
 
+    /**
+     * Return the vertex with a given number.
+     * @param id  a vertex number, 0 .. numVertices-1
+     * @returns  the vertex whose getId() is id
+     */
+    public Vertex vertex(int id) {
+        if (id < 0 || id >= vertexList.size()) {
+            throw new IndexOutOfBoundsException("No vertex " + id);
+        }
+        return vertexById[id];
+    }
+
+    /**
+     * Choose the source and the sink by name, "s" and "t" by default.
+     * Vertices inserted before and after are both covered.
+     * @param sourceName  the name of the source
+     * @param sinkName    the name of the sink
+     */
+    public void setTerminals(Object sourceName, Object sinkName) {
+        this.sourceName = sourceName;
+        this.sinkName = sinkName;
+        this.source = -1;
+        this.sink = -1;
+        for (int id = 0; id < vertexList.size(); id++) {
+            setTerminal(vertexById[id]);
+        }
+    }
+
+    private void setTerminal(Vertex v) {
+        boolean isSource = sourceName.equals(v.getName());
+        boolean isSink = !isSource && sinkName.equals(v.getName());
+
+        v.setTerminal(isSource, isSink);
+        if (isSource) {
+            source = v.getId();
+        } else if (isSink) {
+            sink = v.getId();
+        }
+    }
+
+    /**
+     * Return the number of the source.
+     * @returns  the number of the source, -1 if the graph has none
+     */
+    public int getSource() {
+        return source;
+    }
+
+    /**
+     * Return the number of the sink.
+     * @returns  the number of the sink, -1 if the graph has none
+     */
+    public int getSink() {
+        return sink;
+    }
+
     /**
      * Add an edge to this graph.
      * @param v  the first endpoint of the edge
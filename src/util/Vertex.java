@@ -27,11 +27,14 @@ public class Vertex {
     private Object data;              // an object associated with this vertex
     private Object name;              // a name associated with this vertex
     
-    // Params for Preflow-Push
-    public LinkedList adjacencyList;
-    public Integer current;
-    
-    private Double excess;
+    // Dense number of this vertex in its graph, -1 until it is inserted into one,
+    // and whether it is the source or the sink of the graph
+    private int id;
+    private boolean source;
+    private boolean sink;
+    
+    // Params for Preflow-Push, the excess is kept up to date by Edge.setFlow
+    private double excess;
     private Integer height;
     
     
@@ -45,12 +48,13 @@ public class Vertex {
         this.data = data;
         this.name = name;
         this.incidentEdgeList = new LinkedList();
+        this.id = -1;
+        this.source = "s".equals(name);
+        this.sink = "t".equals(name);
         
         // Params for Preflow-Push
         this.excess = 0.0;
         this.height = 0;
-        this.adjacencyList = new LinkedList();
-        this.current = 0;
     }
     
     // Override for Preflow-Push
@@ -58,11 +62,12 @@ public class Vertex {
         this.data = data;
         this.name = name;
         this.incidentEdgeList = new LinkedList();
+        this.id = -1;
+        this.source = "s".equals(name);
+        this.sink = "t".equals(name);
         
         this.excess = excess;
         this.height = height;
-        this.adjacencyList = new LinkedList();
-        this.current = 0;
     }
     
     /**
@@ -73,6 +78,20 @@ public class Vertex {
         return this.name;
     }
     
+    /**
+     * Return the number of this vertex in its graph.  The vertices of a
+     * graph are numbered 0 .. numVertices-1 in the order they were
+     * inserted, so the number can index arrays.
+     * @return  the number of this vertex, -1 if it is in no graph
+     */
+    public int getId() {
+        return this.id;
+    }
+    
+    void setId(int id) {
+        this.id = id;
+    }
+    
     /**
      * Return the data associated with this vertex.
      * @return  the data of this vertex
@@ -101,28 +120,32 @@ public class Vertex {
         this.excess = excess;
     }
     
+    // Change the excess by the amount of flow that entered this vertex
+    public void addExcess(double delta) {
+        this.excess += delta;
+    }
+    
     public void setHeight(Integer height) {
         this.height = height;
     }
     
     /**
-     * Return whether this vertex is source/sink or not
+     * Return whether this vertex is source/sink or not.  A vertex named
+     * "s" is the source and one named "t" the sink unless its graph was
+     * given other names with SimpleGraph.setTerminals.
      * @return  boolean
      */
     public boolean isSource() {
-    	if (name.equals("s")) {
-    		return true;
-    	}else {
-    		return false;
-    	}
+    	return source;
     }
     
     public boolean isSink() {
-    	if (name.equals("t")) {
-    		return true;
-    	}else {
-    		return false;
-    	}
+    	return sink;
+    }
+    
+    void setTerminal(boolean source, boolean sink) {
+    	this.source = source;
+    	this.sink = sink;
     }
     
     // Relabel the height
@@ -130,21 +153,21 @@ public class Vertex {
     	height++;
     }
     
-    // Update excess of this vertex
+    // Recompute excess of this vertex from the flows of all its incident edges,
+    // only needed if the excess was set to something else with setExcess
     public void updateExcess() {
-		LinkedList incidentEdges = this.incidentEdgeList;
-		Double excessCnt = 0.0;
+		double excessCnt = 0.0;
 				
-		for (int i=0; i<incidentEdges.size(); i++) {
-			Edge e = (Edge) incidentEdges.get(i);
+		for (Iterator i = incidentEdgeList.iterator(); i.hasNext();) {
+			Edge e = (Edge) i.next();
 			
-			if (e.getFirstEndpoint().equals(this)) {
-				excessCnt = excessCnt - e.getFlow();
+			if (e.getFirstEndpoint() == this) {
+				excessCnt = excessCnt - e.flowValue();
 			}else {
-				excessCnt = excessCnt + e.getFlow();
+				excessCnt = excessCnt + e.flowValue();
 			}
 		}
 		
-		this.setExcess(excessCnt);
+		this.excess = excessCnt;
     }
 }